@@ -0,0 +1,77 @@
+package com.example;
+
+import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Average armor tier per online player, recomputed only when equipment changes (join, respawn, armor slot changes)
+ * so the hit path reads it in O(1). With armorTierCache.crossCheck enabled every read is compared against the
+ * live computation and mismatches are logged and corrected.
+ */
+public class ArmorTierCache implements Listener {
+    private final JavaPlugin plugin;
+    private final ConfigManager configManager;
+    private final Map<UUID, Integer> tiers = new HashMap<>();
+
+    public ArmorTierCache(JavaPlugin plugin, ConfigManager configManager) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+
+        // Players already online after a reload never fire join
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            refresh(player);
+        }
+    }
+
+    public int getArmorTier(Player player) {
+        Integer cached = tiers.get(player.getUniqueId());
+        if (cached == null) return refresh(player);
+        if (configManager.getSettings().armorTierCrossCheck()) {
+            int live = ScoringEngine.calculateAverageArmorTier(player);
+            if (live != cached) {
+                plugin.getLogger().warning("Armor tier cache mismatch for " + player.getName() + ": cached " + cached + ", live " + live);
+                tiers.put(player.getUniqueId(), live);
+                return live;
+            }
+        }
+        return cached;
+    }
+
+    private int refresh(Player player) {
+        int tier = ScoringEngine.calculateAverageArmorTier(player);
+        tiers.put(player.getUniqueId(), tier);
+        return tier;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        refresh(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        refresh(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onArmorChange(PlayerArmorChangeEvent event) {
+        refresh(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        tiers.remove(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers tab completion for the name-completing commands (/loc, /inventory, /escrow) on Paper's async
+ * tab-complete thread, so large name indexes never cost main-thread time. Those completers only read
+ * NameUuidManager's concurrent name index and constant lists, which makes them safe to call off-thread.
+ */
+public class AsyncTabCompleteListener implements Listener {
+    private final Map<String, PluginCommand> commands = new HashMap<>();
+
+    public AsyncTabCompleteListener(JavaPlugin plugin, String... commandNames) {
+        for (String name : commandNames) {
+            PluginCommand command = plugin.getCommand(name);
+            if (command == null) continue;
+            commands.put(name, command);
+            for (String alias : command.getAliases()) commands.put(alias.toLowerCase(), command);
+        }
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (!event.isCommand() || event.isHandled()) return;
+        String buffer = event.getBuffer();
+        if (buffer.startsWith("/")) buffer = buffer.substring(1);
+
+        String[] parts = buffer.split(" ", -1);
+        if (parts.length < 2) return;  // Still typing the command name
+        String label = parts[0].toLowerCase();
+        int namespace = label.indexOf(':');
+        if (namespace >= 0) label = label.substring(namespace + 1);
+
+        PluginCommand command = commands.get(label);
+        if (command == null || !command.testPermissionSilent(event.getSender())) return;
+        TabCompleter completer = command.getTabCompleter();
+        if (completer == null) return;
+
+        String[] args = Arrays.copyOfRange(parts, 1, parts.length);
+        List<String> completions = completer.onTabComplete(event.getSender(), command, label, args);
+        if (completions == null) return;
+        event.setCompletions(completions);
+        event.setHandled(true);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sliding-window hit counter for auto-fights: fires when one attacker lands autoFight.hitCount hits
+ * on the same victim within autoFight.timeWindowSeconds.
+ * Each attacker/victim pair keeps a fixed ring of its last hitCount timestamps, so a hit is O(1) and
+ * allocation-free once the pair exists. A one-second timer wheel evicts pairs whose window has passed,
+ * keeping memory bounded by the pairs that are actively fighting. Main thread only.
+ */
+public class AutoFightDetector {
+    private static final long SLOT_MS = 1000L;
+    private static final int WHEEL_SLOTS = 64; // Power of two; windows longer than this are re-checked each lap
+
+    private final ConfigManager configManager;
+    private final Map<UUID, Map<UUID, PairWindow>> pairs = new HashMap<>(); // Victim -> attacker -> window
+    private final List<PairWindow>[] wheel;
+    private long cursorSlot; // Next wheel slot (absolute, in SLOT_MS units) the sweep will process
+
+    /**
+     * Hit timestamps of one attacker against one victim.
+     */
+    private static final class PairWindow {
+        private final UUID attacker;
+        private final UUID victim;
+        private long[] hits;
+        private int head;
+        private int count;
+        private long lastHit;
+        private boolean scheduled;
+
+        PairWindow(UUID attacker, UUID victim, int capacity) {
+            this.attacker = attacker;
+            this.victim = victim;
+            this.hits = new long[capacity];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public AutoFightDetector(JavaPlugin plugin, ConfigManager configManager) {
+        this.configManager = configManager;
+        this.wheel = new List[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) wheel[i] = new ArrayList<>();
+        this.cursorSlot = System.currentTimeMillis() / SLOT_MS;
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                sweep(System.currentTimeMillis());
+            }
+        }.runTaskTimer(plugin, 20L, 20L);
+    }
+
+    /**
+     * Records a hit and returns true when it completes the required hit count inside the window.
+     * The pair's window is reset when it fires.
+     */
+    public boolean recordHit(UUID attacker, UUID victim, long now) {
+        ConfigManager.Settings settings = configManager.getSettings();
+        int requiredHits = settings.autoFightHitCount();
+        if (requiredHits <= 0) return false; // Disabled
+        long windowMs = settings.autoFightTimeWindowSeconds() * 1000L;
+
+        Map<UUID, PairWindow> attackers = pairs.computeIfAbsent(victim, k -> new HashMap<>());
+        PairWindow window = attackers.get(attacker);
+        if (window == null) {
+            window = new PairWindow(attacker, victim, requiredHits);
+            attackers.put(attacker, window);
+        } else if (window.hits.length != requiredHits) {
+            // hitCount changed on reload; start the pair over with the new size
+            window.hits = new long[requiredHits];
+            window.head = 0;
+            window.count = 0;
+        }
+
+        window.hits[window.head] = now;
+        window.head = (window.head + 1) % requiredHits;
+        if (window.count < requiredHits) window.count++;
+        window.lastHit = now;
+        schedule(window, now + windowMs);
+
+        // With the ring full, hits[head] is the oldest of the last requiredHits hits
+        if (window.count == requiredHits && now - window.hits[window.head] <= windowMs) {
+            window.count = 0; // Reset
+            return true;
+        }
+        return false;
+    }
+
+    private void schedule(PairWindow window, long expiresAt) {
+        if (window.scheduled) return; // The sweep re-checks lastHit when its slot comes up
+        long slot = Math.max(expiresAt / SLOT_MS, cursorSlot + 1);
+        slot = Math.min(slot, cursorSlot + WHEEL_SLOTS - 1);
+        wheel[(int) (slot & (WHEEL_SLOTS - 1))].add(window);
+        window.scheduled = true;
+    }
+
+    private void sweep(long now) {
+        long windowMs = configManager.getSettings().autoFightTimeWindowSeconds() * 1000L;
+        long targetSlot = now / SLOT_MS;
+        // After a long stall every slot is due anyway; one lap covers them all
+        if (targetSlot - cursorSlot >= WHEEL_SLOTS) cursorSlot = targetSlot - WHEEL_SLOTS + 1;
+
+        while (cursorSlot <= targetSlot) {
+            List<PairWindow> bucket = wheel[(int) (cursorSlot & (WHEEL_SLOTS - 1))];
+            // Rescheduled windows always land in a later slot, never in this bucket
+            for (int i = 0; i < bucket.size(); i++) {
+                PairWindow window = bucket.get(i);
+                window.scheduled = false;
+                if (now - window.lastHit > windowMs) {
+                    evict(window);
+                } else {
+                    schedule(window, window.lastHit + windowMs);
+                }
+            }
+            bucket.clear();
+            cursorSlot++;
+        }
+    }
+
+    private void evict(PairWindow window) {
+        Map<UUID, PairWindow> attackers = pairs.get(window.victim);
+        if (attackers == null) return;
+        attackers.remove(window.attacker);
+        if (attackers.isEmpty()) pairs.remove(window.victim);
+    }
+}
@@ -1,82 +1,546 @@
-// Update src/main/java/com/example/CombatCache.java (trim after save; provide method to clear after persist)
 package com.example;
 
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.lang.reflect.Array;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * In-memory recent records: Trims to max per player; cleared/trimmed after persist.
+ * In-memory recent records: a growable ring per attacker, grouped in generations.
+ * Each ring stores hits as parallel primitive arrays (structure of arrays), so recording a hit is O(1)
+ * and allocation-free. CombatRecord objects are only built when something reads the cache.
+ * A victim index maps each victim to the rings holding hits against them (with a hit count),
+ * so victim lookups only visit rings that can contribute to the result.
+ * Every hit added is also folded into the PlayerStatsTable.
+ * New hits go into the active generation. A flush swaps in a fresh generation atomically and writes the sealed one;
+ * each generation has its own lock, so hits never wait on a flush. Sealed generations stay readable until their write
+ * is confirmed durable, and a failed write leaves them sealed for the next flush to retry.
+ * Memory is bounded by combatCache.memoryBudgetKb rather than a per-attacker count: rings grow as needed and every
+ * ring's estimated footprint is accounted across all generations. Past FLUSH_AT of the budget the pressure listener
+ * starts a save early; past the budget the least recently hit attackers of the active generation are dropped and
+ * the loss is logged.
  */
 public class CombatCache {
-    private final ConcurrentHashMap<UUID, Deque<CombatRecord>> attackerToRecords = new ConcurrentHashMap<>();
-    private static final int MAX_PER_PLAYER = 50;
+    private static final int INITIAL_RING_CAPACITY = 8;
+    private static final long RING_OVERHEAD_BYTES = 17 * 16 + 96; // Column array headers, ring object, attacker map entry
+    private static final long SLOT_BYTES = 66 + 8; // Column widths per hit, plus a share of victim index entries
+    private static final double FLUSH_AT = 0.75;
+
+    private final AtomicReference<Generation> active = new AtomicReference<>(new Generation());
+    private final Deque<Generation> sealed = new ConcurrentLinkedDeque<>(); // Swapped out, not yet durable; oldest first
+    private final PlayerStatsTable playerStats;
+    private final ConfigManager configManager;
+    private final AtomicLong estimatedBytes = new AtomicLong(); // All generations held in memory
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong evictedHits = new AtomicLong(); // Since the last flush
+    private volatile Runnable pressureListener;
+
+    /**
+     * One generation of cached hits. Appends, deletes and reads of a generation hold its monitor.
+     */
+    public final class Generation {
+        private final Map<UUID, HitRing> attackerToRecords = new LinkedHashMap<>(16, 0.75f, true); // LRU order
+
+        private final Map<UUID, Map<HitRing, int[]>> victimIndex = new HashMap<>();
+        private boolean sealed;   // No more appends once set
+        private boolean flushing; // Claimed by a write that has not completed yet
+        private long bytes;       // Estimated footprint of this generation's rings
+        private final Set<Integer> committedDays = new HashSet<>(); // Days an earlier, partly failed write already stored
+
+        /**
+         * Every record of this generation, oldest first. Safe to call from the I/O thread.
+         */
+        public synchronized List<CombatRecord> materialize() {
+            List<CombatRecord> records = new ArrayList<>();
+            for (HitRing ring : attackerToRecords.values()) records.addAll(ring.toList(Integer.MAX_VALUE));
+            records.sort(Comparator.comparingLong(CombatRecord::timestamp));
+            return records;
+        }
+
+        /**
+         * Days of this generation already appended to the segment store. Only used by the write that has claimed
+         * the generation, so a retry after a partial failure skips them.
+         */
+        public Set<Integer> committedDays() {
+            return committedDays;
+        }
+
+        private synchronized void collectByAttacker(UUID attacker, int limit, List<CombatRecord> out) {
+            HitRing ring = attackerToRecords.get(attacker);
+            if (ring != null) out.addAll(ring.toList(limit));
+        }
+
+        private synchronized void collectByVictim(UUID victim, List<CombatRecord> out) {
+            for (HitRing ring : victimIndex.getOrDefault(victim, Map.of()).keySet()) {
+                ring.collectByVictim(victim, out);
+            }
+        }
+
+        private synchronized void collectAll(Map<UUID, List<CombatRecord>> out) {
+            for (var entry : attackerToRecords.entrySet()) {
+                out.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue().toList(Integer.MAX_VALUE));
+            }
+        }
+
+        /**
+         * Drops whole rings, least recently hit attacker first, until {@code target} bytes are freed.
+         * Returns the number of hits dropped.
+         */
+        private synchronized int evictLeastRecent(long target, UUID keep) {
+            if (sealed) return 0; // Being written; its memory is released when the write completes
+            int hits = 0;
+            long freed = 0;
+            Iterator<HitRing> it = attackerToRecords.values().iterator();
+            while (freed < target && it.hasNext()) {
+                HitRing ring = it.next();
+                if (ring.attacker.equals(keep)) continue;
+                for (int k = 0; k < ring.size; k++) ring.unindexSlot(ring.slot(k));
+                hits += ring.size;
+                freed += ring.bytes();
+                it.remove();
+            }
+            bytes -= freed;
+            estimatedBytes.addAndGet(-freed);
+            return hits;
+        }
+
+        private synchronized void deleteOlderThan(UUID playerUUID, long cutoff) {
+            if (playerUUID == null) {
+                for (HitRing ring : attackerToRecords.values()) ring.removeOlderThan(cutoff, null);
+                return;
+            }
+            // Remove where player is attacker
+            HitRing attackerRecords = attackerToRecords.get(playerUUID);
+            if (attackerRecords != null) {
+                attackerRecords.removeOlderThan(cutoff, null);
+            }
+
+            // Remove where player is victim
+            for (HitRing ring : List.copyOf(victimIndex.getOrDefault(playerUUID, Map.of()).keySet())) {
+                ring.removeOlderThan(cutoff, playerUUID);
+            }
+        }
+    }
+
+    public CombatCache(PlayerStatsTable playerStats, ConfigManager configManager) {
+        this.playerStats = playerStats;
+        this.configManager = configManager;
+    }
+
+    /**
+     * Called (on the thread recording the hit) when the cache passes FLUSH_AT of its budget; not again until a flush
+     * has completed durably.
+     */
+    public void setPressureListener(Runnable pressureListener) {
+        this.pressureListener = pressureListener;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes.get();
+    }
 
     public void addRecord(CombatRecord record) {
-        Deque<CombatRecord> records = attackerToRecords.computeIfAbsent(record.attackerUUID(), k -> new ConcurrentLinkedDeque<>());
-        records.addFirst(record);
-        trimToSize(records);
+        addHit(record.attackerUUID(), record.attackerName(), record.victimUUID(), record.victimName(),
+                record.weaponMaterial(), record.hitBodyPart(), record.hitLocation(), record.damageAmount(),
+                record.isFatalKill(), record.wasVictimBlocking(), record.victimArmorTier(), record.fightSessionId(),
+                record.timestamp());
     }
 
-    private void trimToSize(Deque<CombatRecord> deque) {
-        while (deque.size() > MAX_PER_PLAYER) {
-            deque.removeLast();
+    /**
+     * Records a hit without allocating a CombatRecord. The location is read immediately,
+     * so callers may pass a reused scratch Location.
+     */
+    public void addHit(UUID attacker, String attackerName, UUID victim, String victimName, Material weapon,
+                       String hitBodyPart, Location location, double damage, boolean fatal, boolean victimBlocking,
+                       int victimArmorTier, UUID fightSessionId, long timestamp) {
+        Generation gen;
+        long added = 0;
+        while (true) {
+            gen = active.get();
+            synchronized (gen) {
+                if (gen.sealed) continue; // Swapped out under us; use the fresh generation
+                HitRing ring = gen.attackerToRecords.get(attacker);
+                if (ring == null) {
+                    ring = new HitRing(attacker, INITIAL_RING_CAPACITY, gen);
+                    gen.attackerToRecords.put(attacker, ring);
+                    added = ring.bytes();
+                }
+                added += ring.append(attackerName, victim, victimName, weapon, hitBodyPart, location, damage, fatal,
+                        victimBlocking, victimArmorTier, fightSessionId, timestamp);
+                gen.bytes += added;
+            }
+            break;
+        }
+        playerStats.record(attacker, victim, damage, fatal, fightSessionId != null);
+        if (added > 0) checkBudget(gen, estimatedBytes.addAndGet(added), attacker);
+    }
+
+    private void checkBudget(Generation gen, long total, UUID keep) {
+        long budget = configManager.getCombatCacheBudgetBytes();
+        if (total >= budget * FLUSH_AT && flushRequested.compareAndSet(false, true)) {
+            Runnable listener = pressureListener;
+            if (listener != null) listener.run();
+        }
+        if (total <= budget) return;
+
+        // Still over budget (writes slow or failing): make room in the generation that is still growing
+        int dropped = gen.evictLeastRecent(total - budget, keep);
+        if (dropped > 0 && evictedHits.getAndAdd(dropped) == 0) {
+            TelemetryLogger.warning("Combat cache over its " + (budget / 1024) + " KB budget; dropping hits of the least "
+                    + "recently active attackers until the next save completes.");
         }
     }
 
     public List<CombatRecord> getRecentHitsByAttacker(UUID attackerUUID, int limit) {
-        Deque<CombatRecord> records = attackerToRecords.get(attackerUUID);
-        if (records == null) return List.of();
         if (limit < 0) limit = Integer.MAX_VALUE;
-        return new ArrayList<>(records).stream().limit(limit).collect(Collectors.toList());
+        List<CombatRecord> records = new ArrayList<>();
+        for (Generation gen : generations()) gen.collectByAttacker(attackerUUID, limit, records);
+        records.sort(Comparator.comparingLong(CombatRecord::timestamp).reversed());
+        return records.size() > limit ? List.copyOf(records.subList(0, limit)) : records;
     }
 
     public List<CombatRecord> getRecordsInvolvingPlayer(UUID playerUUID, int limit) {
         if (limit < 0) limit = Integer.MAX_VALUE;
         List<CombatRecord> allRecords = new ArrayList<>();
         allRecords.addAll(getRecentHitsByAttacker(playerUUID, limit == Integer.MAX_VALUE ? Integer.MAX_VALUE : limit * 2));
-        for (var entry : attackerToRecords.entrySet()) {
-            for (CombatRecord record : entry.getValue()) {
-                if (record.victimUUID().equals(playerUUID)) {
-                    allRecords.add(record);
-                }
-            }
-        }
+        for (Generation gen : generations()) gen.collectByVictim(playerUUID, allRecords);
         allRecords.sort(Comparator.comparingLong(CombatRecord::timestamp).reversed());
-        return allRecords.stream().distinct().limit(limit).collect(Collectors.toList());
+        return allRecords.stream().distinct().limit(limit).toList();
     }
 
-    public ConcurrentHashMap<UUID, Deque<CombatRecord>> getRecordsMap() {
-        return attackerToRecords;
+    /**
+     * Every cached record, including those of generations written but not yet released. Safe to call from the I/O thread.
+     */
+    public List<CombatRecord> getAllRecords() {
+        List<CombatRecord> records = new ArrayList<>();
+        for (Generation gen : generations()) records.addAll(gen.materialize());
+        return records;
     }
 
     /**
-     * Clears in-memory after persist (user req: clear periodically to free VM).
+     * Materialized copy of every cached record (all generations not yet durable), keyed by attacker, newest first.
      */
-    public void clearAfterPersist() {
-        attackerToRecords.clear();
+    public Map<UUID, List<CombatRecord>> getRecordsMap() {
+        Map<UUID, List<CombatRecord>> map = new HashMap<>();
+        for (Generation gen : generations()) gen.collectAll(map);
+        map.values().removeIf(List::isEmpty);
+        for (List<CombatRecord> records : map.values()) records.sort(Comparator.comparingLong(CombatRecord::timestamp).reversed());
+        return map;
     }
 
-    public void deleteOldRecords(UUID playerUUID, long timespanMs) {
-        long cutoff = timespanMs == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - timespanMs;
-        
-        // Remove where player is attacker
-        Deque<CombatRecord> attackerRecords = attackerToRecords.get(playerUUID);
-        if (attackerRecords != null) {
-            attackerRecords.removeIf(record -> record.timestamp() < cutoff);
+    /**
+     * Seals the active generation, swapping in an empty one, and claims every sealed generation that is not being
+     * written yet (including ones whose earlier write failed). Pass the result to {@link #completeFlush} once the
+     * write has finished. Main thread.
+     */
+    public synchronized List<Generation> beginFlush() {
+        Generation previous = active.getAndSet(new Generation());
+        synchronized (previous) {
+            previous.sealed = true;
         }
-        
-        // Remove where player is victim
-        for (Deque<CombatRecord> records : attackerToRecords.values()) {
-            records.removeIf(record -> record.victimUUID().equals(playerUUID) && record.timestamp() < cutoff);
+        sealed.addLast(previous);
+        long evicted = evictedHits.getAndSet(0);
+        if (evicted > 0) {
+            TelemetryLogger.warning("Combat cache dropped " + evicted + " hits over budget since the last save.");
         }
+
+        List<Generation> claimed = new ArrayList<>();
+        for (Generation gen : sealed) {
+            if (!gen.flushing) {
+                gen.flushing = true;
+                claimed.add(gen);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Drops flushed generations from memory once durable; on failure they stay readable and are retried. Main thread.
+     * The pressure listener is re-armed only here: sealed bytes count against the budget until their write is durable,
+     * so re-arming on seal would request another save on every hit while this one is still running.
+     */
+    public synchronized void completeFlush(List<Generation> flushed, boolean durable) {
+        for (Generation gen : flushed) {
+            gen.flushing = false;
+            if (durable && sealed.remove(gen)) estimatedBytes.addAndGet(-gen.bytes);
+        }
+        if (durable) flushRequested.set(false); // After a failure the periodic save retries first
+    }
+
+    public void deleteOldRecords(UUID playerUUID, long timespanMs) {
+        long cutoff = timespanMs == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - timespanMs;
+        for (Generation gen : generations()) gen.deleteOlderThan(playerUUID, cutoff);
     }
 
     public void deleteOldRecordsForAll(long timespanMs) {
         long cutoff = timespanMs == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - timespanMs;
-        for (Deque<CombatRecord> records : attackerToRecords.values()) {
-            records.removeIf(record -> record.timestamp() < cutoff);
+        for (Generation gen : generations()) gen.deleteOlderThan(null, cutoff);
+    }
+
+    /** Active generation first, then sealed ones newest first. */
+    private List<Generation> generations() {
+        List<Generation> gens = new ArrayList<>(sealed.size() + 1);
+        gens.add(active.get());
+        for (Iterator<Generation> it = sealed.descendingIterator(); it.hasNext(); ) {
+            Generation gen = it.next();
+            if (gen != gens.get(0)) gens.add(gen); // Sealed between the two reads
+        }
+        return gens;
+    }
+
+    private static void index(Map<UUID, Map<HitRing, int[]>> index, UUID key, HitRing ring) {
+        index.computeIfAbsent(key, k -> new HashMap<>()).computeIfAbsent(ring, r -> new int[1])[0]++;
+    }
+
+    private static void unindex(Map<UUID, Map<HitRing, int[]>> index, UUID key, HitRing ring) {
+        Map<HitRing, int[]> rings = index.get(key);
+        if (rings == null) return;
+        int[] count = rings.get(ring);
+        if (count == null || --count[0] > 0) return;
+        rings.remove(ring);
+        if (rings.isEmpty()) index.remove(key);
+    }
+
+    /**
+     * Ring of one attacker's hits, stored column-wise.
+     * Appends double the capacity once full, so no hit is overwritten. Object columns only hold references the caller
+     * already owns (names, world, session id), so no allocation happens per hit.
+     * Callers hold the owning generation's lock; indexed rings keep its victimIndex in step.
+     */
+    private final class HitRing {
+        private static final Material[] MATERIALS = Material.values();
+        private static final double COORD_SCALE = 32.0;
+
+        private final UUID attacker;
+        private int capacity;
+        private final Generation owner; // Null for unindexed scratch rings
+        private long[] timestamps;
+        private long[] victimMost;
+        private long[] victimLeast;
+        private float[] damage;
+        private byte[] flags;
+        private short[] material;
+        private byte[] armorTier;
+        private int[] x, y, z;
+        private byte[] yaw, pitch;
+        private String[] attackerNames;
+        private String[] victimNames;
+        private String[] bodyParts;
+        private World[] worlds;
+        private UUID[] sessions;
+        private int head; // Next slot to write
+        private int size;
+
+        private static final byte FLAG_FATAL = 1;
+        private static final byte FLAG_BLOCKING = 2;
+
+        HitRing(UUID attacker, int capacity, Generation owner) {
+            this.attacker = attacker;
+            this.capacity = capacity;
+            this.owner = owner;
+            timestamps = new long[capacity];
+            victimMost = new long[capacity];
+            victimLeast = new long[capacity];
+            damage = new float[capacity];
+            flags = new byte[capacity];
+            material = new short[capacity];
+            armorTier = new byte[capacity];
+            x = new int[capacity];
+            y = new int[capacity];
+            z = new int[capacity];
+            yaw = new byte[capacity];
+            pitch = new byte[capacity];
+            attackerNames = new String[capacity];
+            victimNames = new String[capacity];
+            bodyParts = new String[capacity];
+            worlds = new World[capacity];
+            sessions = new UUID[capacity];
+        }
+
+        long bytes() {
+            return RING_OVERHEAD_BYTES + capacity * SLOT_BYTES;
+        }
+
+        /**
+         * Appends a hit, doubling the ring when full. Returns the bytes the ring grew by.
+         */
+        long append(String attackerName, UUID victim, String victimName, Material weapon, String bodyPart,
+                    Location loc, double dmg, boolean fatal, boolean blocking, int tier, UUID session, long timestamp) {
+            long grown = 0;
+            if (size == capacity) {
+                long before = bytes();
+                grow();
+                grown = bytes() - before;
+            }
+            int i = head;
+            timestamps[i] = timestamp;
+            victimMost[i] = victim.getMostSignificantBits();
+            victimLeast[i] = victim.getLeastSignificantBits();
+            damage[i] = (float) dmg;
+            flags[i] = (byte) ((fatal ? FLAG_FATAL : 0) | (blocking ? FLAG_BLOCKING : 0));
+            material[i] = (short) weapon.ordinal();
+            armorTier[i] = (byte) tier;
+            x[i] = (int) Math.round(loc.getX() * COORD_SCALE);
+            y[i] = (int) Math.round(loc.getY() * COORD_SCALE);
+            z[i] = (int) Math.round(loc.getZ() * COORD_SCALE);
+            yaw[i] = (byte) Math.round(loc.getYaw() * 256.0f / 360.0f);
+            pitch[i] = (byte) Math.round(loc.getPitch() * 256.0f / 360.0f);
+            attackerNames[i] = attackerName;
+            victimNames[i] = victimName;
+            bodyParts[i] = bodyPart;
+            worlds[i] = loc.getWorld();
+            sessions[i] = session;
+            if (owner != null) index(owner.victimIndex, victim, this);
+
+            head = (head + 1) % capacity;
+            if (size < capacity) size++;
+            return grown;
+        }
+
+        /**
+         * Doubles the capacity of a full ring, unrolling it so the oldest hit is in slot 0.
+         */
+        private void grow() {
+            int newCapacity = capacity * 2;
+            timestamps = (long[]) unroll(timestamps, newCapacity);
+            victimMost = (long[]) unroll(victimMost, newCapacity);
+            victimLeast = (long[]) unroll(victimLeast, newCapacity);
+            damage = (float[]) unroll(damage, newCapacity);
+            flags = (byte[]) unroll(flags, newCapacity);
+            material = (short[]) unroll(material, newCapacity);
+            armorTier = (byte[]) unroll(armorTier, newCapacity);
+            x = (int[]) unroll(x, newCapacity);
+            y = (int[]) unroll(y, newCapacity);
+            z = (int[]) unroll(z, newCapacity);
+            yaw = (byte[]) unroll(yaw, newCapacity);
+            pitch = (byte[]) unroll(pitch, newCapacity);
+            attackerNames = (String[]) unroll(attackerNames, newCapacity);
+            victimNames = (String[]) unroll(victimNames, newCapacity);
+            bodyParts = (String[]) unroll(bodyParts, newCapacity);
+            worlds = (World[]) unroll(worlds, newCapacity);
+            sessions = (UUID[]) unroll(sessions, newCapacity);
+            head = size;
+            capacity = newCapacity;
+        }
+
+        /** Copy of a full column into a larger array, oldest slot (head) first. */
+        private Object unroll(Object column, int newCapacity) {
+            Object grown = Array.newInstance(column.getClass().getComponentType(), newCapacity);
+            System.arraycopy(column, head, grown, 0, capacity - head);
+            System.arraycopy(column, 0, grown, capacity - head, head);
+            return grown;
+        }
+
+        private void unindexSlot(int i) {
+            if (owner == null) return;
+            unindex(owner.victimIndex, new UUID(victimMost[i], victimLeast[i]), this);
+        }
+
+        /** Physical slot of the n-th newest hit (0 = newest). */
+        private int slot(int n) {
+            return Math.floorMod(head - 1 - n, capacity);
+        }
+
+        List<CombatRecord> toList(int limit) {
+            int n = Math.min(limit, size);
+            List<CombatRecord> out = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) out.add(materialize(slot(k)));
+            return out;
+        }
+
+        void collectByVictim(UUID victim, List<CombatRecord> out) {
+            long most = victim.getMostSignificantBits(), least = victim.getLeastSignificantBits();
+            for (int k = 0; k < size; k++) {
+                int i = slot(k);
+                if (victimMost[i] == most && victimLeast[i] == least) out.add(materialize(i));
+            }
+        }
+
+        /**
+         * Drops hits older than the cutoff (only those against {@code victim} if non-null),
+         * compacting the survivors while keeping their order.
+         */
+        void removeOlderThan(long cutoff, UUID victim) {
+            int kept = 0;
+            int[] keep = new int[size];
+            for (int k = size - 1; k >= 0; k--) { // Oldest first
+                int i = slot(k);
+                boolean victimMatches = victim == null
+                        || (victimMost[i] == victim.getMostSignificantBits() && victimLeast[i] == victim.getLeastSignificantBits());
+                if (victimMatches && timestamps[i] < cutoff) {
+                    unindexSlot(i);
+                } else {
+                    keep[kept++] = i;
+                }
+            }
+            if (kept == size) return;
+
+            HitRing compacted = new HitRing(attacker, capacity, null);
+            for (int k = 0; k < kept; k++) compacted.copySlot(this, keep[k]);
+            System.arraycopy(compacted.timestamps, 0, timestamps, 0, capacity);
+            System.arraycopy(compacted.victimMost, 0, victimMost, 0, capacity);
+            System.arraycopy(compacted.victimLeast, 0, victimLeast, 0, capacity);
+            System.arraycopy(compacted.damage, 0, damage, 0, capacity);
+            System.arraycopy(compacted.flags, 0, flags, 0, capacity);
+            System.arraycopy(compacted.material, 0, material, 0, capacity);
+            System.arraycopy(compacted.armorTier, 0, armorTier, 0, capacity);
+            System.arraycopy(compacted.x, 0, x, 0, capacity);
+            System.arraycopy(compacted.y, 0, y, 0, capacity);
+            System.arraycopy(compacted.z, 0, z, 0, capacity);
+            System.arraycopy(compacted.yaw, 0, yaw, 0, capacity);
+            System.arraycopy(compacted.pitch, 0, pitch, 0, capacity);
+            System.arraycopy(compacted.attackerNames, 0, attackerNames, 0, capacity);
+            System.arraycopy(compacted.victimNames, 0, victimNames, 0, capacity);
+            System.arraycopy(compacted.bodyParts, 0, bodyParts, 0, capacity);
+            System.arraycopy(compacted.worlds, 0, worlds, 0, capacity);
+            System.arraycopy(compacted.sessions, 0, sessions, 0, capacity);
+            head = compacted.head;
+            size = compacted.size;
+        }
+
+        private void copySlot(HitRing from, int i) {
+            int j = head;
+            timestamps[j] = from.timestamps[i];
+            victimMost[j] = from.victimMost[i];
+            victimLeast[j] = from.victimLeast[i];
+            damage[j] = from.damage[i];
+            flags[j] = from.flags[i];
+            material[j] = from.material[i];
+            armorTier[j] = from.armorTier[i];
+            x[j] = from.x[i];
+            y[j] = from.y[i];
+            z[j] = from.z[i];
+            yaw[j] = from.yaw[i];
+            pitch[j] = from.pitch[i];
+            attackerNames[j] = from.attackerNames[i];
+            victimNames[j] = from.victimNames[i];
+            bodyParts[j] = from.bodyParts[i];
+            worlds[j] = from.worlds[i];
+            sessions[j] = from.sessions[i];
+            head = (head + 1) % capacity;
+            size++;
+        }
+
+        private CombatRecord materialize(int i) {
+            return new CombatRecord(
+                    attacker, attackerNames[i],
+                    new UUID(victimMost[i], victimLeast[i]), victimNames[i],
+                    MATERIALS[material[i]], bodyParts[i],
+                    new Location(worlds[i], x[i] / COORD_SCALE, y[i] / COORD_SCALE, z[i] / COORD_SCALE,
+                            yaw[i] * 360.0f / 256.0f, pitch[i] * 360.0f / 256.0f),
+                    damage[i],
+                    (flags[i] & FLAG_FATAL) != 0,
+                    (flags[i] & FLAG_BLOCKING) != 0,
+                    armorTier[i],
+                    sessions[i],
+                    timestamps[i]
+            );
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.example;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Standalone benchmark: bytes/record and encode/decode ns/record for the old GZIP YAML path
+ * (CombatRecord.serialize + YamlConfiguration + GZIP) versus CombatRecordCodec.
+ * Run with the Paper API on the classpath: java -cp <paper-api + build/classes> com.example.CombatCodecBenchmark [records]
+ */
+public class CombatCodecBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        List<CombatRecord> records = generate(count, new Random(42));
+
+        System.out.println("Records: " + count);
+        runYaml(records);
+        runCodec(records);
+    }
+
+    private static void runYaml(List<CombatRecord> records) throws Exception {
+        long bestEncode = Long.MAX_VALUE, bestDecode = Long.MAX_VALUE;
+        byte[] gz = null;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            gz = yamlEncode(records);
+            long encoded = System.nanoTime();
+            int decoded = yamlDecode(gz).size();
+            long end = System.nanoTime();
+            if (decoded != records.size()) throw new IllegalStateException("YAML round trip lost records");
+            if (round >= WARMUP_ROUNDS) {
+                bestEncode = Math.min(bestEncode, encoded - start);
+                bestDecode = Math.min(bestDecode, end - encoded);
+            }
+        }
+        report("GZIP YAML", gz.length, records.size(), bestEncode, bestDecode);
+    }
+
+    private static void runCodec(List<CombatRecord> records) {
+        long bestEncode = Long.MAX_VALUE, bestDecode = Long.MAX_VALUE;
+        int bytes = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            StringDictionary dict = new StringDictionary();
+            long start = System.nanoTime();
+            List<byte[]> payloads = new ArrayList<>(records.size());
+            for (CombatRecord record : records) {
+                payloads.add(CombatRecordCodec.encode(record, dict));
+            }
+            long encoded = System.nanoTime();
+            int decoded = 0;
+            for (byte[] payload : payloads) {
+                if (CombatRecordCodec.decode(CombatRecordCodec.VERSION, ByteBuffer.wrap(payload), dict) != null) decoded++;
+            }
+            long end = System.nanoTime();
+            if (decoded != records.size()) throw new IllegalStateException("Codec round trip lost records");
+
+            // Length prefix per record, plus the dictionary sidecar (u16 length + UTF-8 per string)
+            bytes = 0;
+            for (byte[] payload : payloads) bytes += 4 + payload.length;
+            for (int i = 0; i < dict.size(); i++) bytes += 2 + dict.get(i).getBytes(StandardCharsets.UTF_8).length;
+
+            if (round >= WARMUP_ROUNDS) {
+                bestEncode = Math.min(bestEncode, encoded - start);
+                bestDecode = Math.min(bestDecode, end - encoded);
+            }
+        }
+        report("CombatRecordCodec", bytes, records.size(), bestEncode, bestDecode);
+    }
+
+    private static byte[] yamlEncode(List<CombatRecord> records) throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("records", records.stream().map(CombatRecord::serialize).toList());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            writer.write(yaml.saveToString());
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CombatRecord> yamlDecode(byte[] gz) throws IOException, InvalidConfigurationException {
+        String text;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.loadFromString(text);
+        List<CombatRecord> out = new ArrayList<>();
+        for (Map<?, ?> raw : yaml.getMapList("records")) {
+            out.add(CombatRecord.deserialize((Map<String, Object>) raw));
+        }
+        return out;
+    }
+
+    private static void report(String label, int bytes, int count, long encodeNs, long decodeNs) {
+        System.out.printf("%-18s %7.1f bytes/record  encode %8.0f ns/record  decode %8.0f ns/record%n",
+                label, bytes / (double) count, encodeNs / (double) count, decodeNs / (double) count);
+    }
+
+    /**
+     * Synthetic but realistic mix: a few dozen players, common weapons, a third of hits inside fights.
+     */
+    private static List<CombatRecord> generate(int count, Random random) {
+        Material[] weapons = {Material.AIR, Material.DIAMOND_SWORD, Material.NETHERITE_SWORD, Material.IRON_AXE, Material.STICK};
+        String[] bodyParts = {"head", "torso", "legs"};
+        int players = 40;
+        UUID[] uuids = new UUID[players];
+        String[] names = new String[players];
+        for (int i = 0; i < players; i++) {
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+            names[i] = "Player_" + Integer.toString(random.nextInt(1 << 20), 36);
+        }
+        UUID session = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        List<CombatRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int a = random.nextInt(players);
+            int v = (a + 1 + random.nextInt(players - 1)) % players;
+            boolean fatal = random.nextInt(20) == 0;
+            records.add(new CombatRecord(
+                    uuids[a], names[a], uuids[v], names[v],
+                    weapons[random.nextInt(weapons.length)], bodyParts[random.nextInt(bodyParts.length)],
+                    new Location(null, random.nextDouble() * 4000 - 2000, 60 + random.nextDouble() * 40, random.nextDouble() * 4000 - 2000,
+                            random.nextFloat() * 360 - 180, random.nextFloat() * 180 - 90),
+                    fatal ? 999.0 : 1 + random.nextInt(16) / 2.0, fatal, random.nextInt(10) == 0, random.nextInt(7),
+                    random.nextInt(3) == 0 ? session : null,
+                    now - (long) (count - i) * 250L
+            ));
+        }
+        return records;
+    }
+}
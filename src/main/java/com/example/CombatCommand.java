@@ -10,8 +10,11 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * /combat lookup: Use full involving for disk.
@@ -22,11 +25,13 @@ public class CombatCommand implements CommandExecutor {
     private final PersistenceManager persistenceManager;
     private final NameUuidManager nameUuidManager;
     private final TabListManager tabListManager;
+    private final PersistenceExecutor persistenceExecutor;
 
-    public CombatCommand(CombatCache combatCache, ConfigManager configManager, PersistenceManager persistenceManager, NameUuidManager nameUuidManager, TabListManager tabListManager) {
+    public CombatCommand(CombatCache combatCache, ConfigManager configManager, PersistenceManager persistenceManager, PersistenceExecutor persistenceExecutor, NameUuidManager nameUuidManager, TabListManager tabListManager) {
         this.combatCache = combatCache;
         this.configManager = configManager;
         this.persistenceManager = persistenceManager;
+        this.persistenceExecutor = persistenceExecutor;
         this.nameUuidManager = nameUuidManager;
         this.tabListManager = tabListManager;
     }
@@ -128,19 +133,31 @@ public class CombatCommand implements CommandExecutor {
                 }
             }
 
+            // The cache is cleared now; the disk delete is queued behind in-flight saves so none of them re-adds records.
+            // It also recounts the affected stats rows, which are applied once it is done.
+            String olderThan = timespanMs == 0 ? "." : " older than " + args[2];
+            long deleteSpan = timespanMs;
+            AtomicReference<PlayerStatsTable.Recount> recount = new AtomicReference<>();
             if (target.equals("all")) {
-                persistenceManager.deleteOldRecordsForAll(timespanMs);
                 combatCache.deleteOldRecordsForAll(timespanMs);
-                sender.sendMessage(Component.text("Deleted records for all players" + (timespanMs == 0 ? "." : " older than " + args[2])).color(NamedTextColor.GREEN));
+                persistenceExecutor.submit("combat delete all",
+                        () -> recount.set(persistenceManager.deleteOldRecordsForAll(deleteSpan, combatCache)),
+                        error -> finishDelete(sender, "all players", olderThan, recount.get(), error));
             } else {
                 UUID uuid = resolveUuid(target);
                 if (uuid == null) {
                     sender.sendMessage(Component.text("Player/UUID not found: " + target).color(NamedTextColor.RED));
                     return true;
                 }
-                persistenceManager.deleteOldRecords(uuid, timespanMs);
+                Set<UUID> cachedOpponents = new HashSet<>();
+                for (CombatRecord r : combatCache.getRecordsInvolvingPlayer(uuid, Integer.MAX_VALUE)) {
+                    cachedOpponents.add(r.attackerUUID());
+                    cachedOpponents.add(r.victimUUID());
+                }
                 combatCache.deleteOldRecords(uuid, timespanMs);
-                sender.sendMessage(Component.text("Deleted records for " + target + (timespanMs == 0 ? "." : " older than " + args[2])).color(NamedTextColor.GREEN));
+                persistenceExecutor.submit("combat delete " + uuid,
+                        () -> recount.set(persistenceManager.deleteOldRecords(uuid, deleteSpan, cachedOpponents, combatCache)),
+                        error -> finishDelete(sender, target, olderThan, recount.get(), error));
             }
         } else {
             sender.sendMessage(Component.text("Unknown: " + subCmd).color(NamedTextColor.RED));
@@ -148,6 +165,15 @@ public class CombatCommand implements CommandExecutor {
         return true;
     }
 
+    private void finishDelete(CommandSender sender, String target, String olderThan, PlayerStatsTable.Recount recount, Throwable error) {
+        if (recount != null) persistenceManager.applyStatsRecount(recount, combatCache);
+        if (error != null) {
+            sender.sendMessage(Component.text("Failed to delete stored records for " + target + "; see console.").color(NamedTextColor.RED));
+        } else {
+            sender.sendMessage(Component.text("Deleted records for " + target + olderThan).color(NamedTextColor.GREEN));
+        }
+    }
+
     private void printPlayerCombat(CommandSender sender, UUID targetUuid, String targetName, String mode, int limit) {
         List<CombatRecord> records;
         if (mode.equals("full")) {
@@ -161,13 +187,15 @@ public class CombatCommand implements CommandExecutor {
 
         // Avatar/Header formatting
         WinsLosses wl = persistenceManager.getWinsLosses(targetUuid);
-        long fightKills = records.stream().filter(r -> r.isFatalKill() && r.attackerUUID().equals(targetUuid) && r.fightSessionId() != null).count();
-        long nonFightKills = records.stream().filter(r -> r.isFatalKill() && r.attackerUUID().equals(targetUuid) && r.fightSessionId() == null).count();
-        String icon = nonFightKills > fightKills ? "☠" : "★";
+        PlayerStats stats = persistenceManager.getPlayerStats().get(targetUuid);
+        String icon = stats.isBully() ? "☠" : "★";
 
         Component header = Component.text("👤 " + targetName, NamedTextColor.GREEN)
                 .append(Component.text(" | W:" + wl.wins() + " L:" + wl.losses(), NamedTextColor.AQUA))
                 .append(Component.text(" | " + icon, NamedTextColor.RED))
+                .append(Component.text(" | K:" + stats.getFightKills() + "/" + stats.getNonFightKills()
+                        + " Hits:" + stats.getHits()
+                        + " Dmg:" + String.format("%.0f", stats.getDamageDealt()) + "/" + String.format("%.0f", stats.getDamageTaken()), NamedTextColor.GRAY))
                 .append(Component.text(" (" + mode + "):", NamedTextColor.GOLD));
         sender.sendMessage(header);
 
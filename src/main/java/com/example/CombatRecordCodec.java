@@ -0,0 +1,151 @@
+package com.example;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Compact binary codec for CombatRecord.
+ * UUIDs are two longs, names/world/material go through the file's StringDictionary, body part is a
+ * table ordinal and coordinates are 1/32-block fixed point. The attacker, victim and timestamp always
+ * lead the payload so stores can filter records without decoding them.
+ *
+ * Material is dictionary-encoded rather than stored as {@code Material.ordinal()}: the enum order changes
+ * between Minecraft versions, a per-file dictionary id does not.
+ */
+public final class CombatRecordCodec {
+    /** Current payload version; written in the header of every file that holds encoded records. */
+    public static final short VERSION = 2;
+
+    /** Size of the key fields (attacker, victim, timestamp) that lead every payload. */
+    public static final int KEY_BYTES = 8 * 5;
+
+    private static final byte FLAG_FATAL = 1;
+    private static final byte FLAG_BLOCKING = 2;
+    private static final byte FLAG_SESSION = 4;
+
+    private static final double COORD_SCALE = 32.0;
+    private static final String[] BODY_PARTS = {"head", "torso", "legs"};
+    private static final int BODY_PART_OTHER = 0xFF;
+
+    private CombatRecordCodec() {
+    }
+
+    // Layout: attacker(16) victim(16) timestamp(8) flags(1) [session(16)] damage(f32) x y z(i32 fixed 1/32)
+    //         yaw pitch(u8 each) armorTier(1) bodyPart(1) [bodyPart dict id] material, attackerName,
+    //         victimName, world (varint dict ids)
+    public static byte[] encode(CombatRecord r, StringDictionary dict) {
+        ByteBuffer buf = ByteBuffer.allocate(KEY_BYTES + 1 + 16 + 4 + 12 + 2 + 2 + 5 * 5);
+        buf.putLong(r.attackerUUID().getMostSignificantBits()).putLong(r.attackerUUID().getLeastSignificantBits());
+        buf.putLong(r.victimUUID().getMostSignificantBits()).putLong(r.victimUUID().getLeastSignificantBits());
+        buf.putLong(r.timestamp());
+
+        UUID session = r.fightSessionId();
+        byte flags = 0;
+        if (r.isFatalKill()) flags |= FLAG_FATAL;
+        if (r.wasVictimBlocking()) flags |= FLAG_BLOCKING;
+        if (session != null) flags |= FLAG_SESSION;
+        buf.put(flags);
+        if (session != null) {
+            buf.putLong(session.getMostSignificantBits()).putLong(session.getLeastSignificantBits());
+        }
+
+        Location loc = r.hitLocation();
+        buf.putFloat((float) r.damageAmount());
+        buf.putInt(quantize(loc.getX())).putInt(quantize(loc.getY())).putInt(quantize(loc.getZ()));
+        buf.put(packAngle(loc.getYaw())).put(packAngle(loc.getPitch()));
+        buf.put((byte) Math.max(0, Math.min(255, r.victimArmorTier())));
+
+        int bodyPart = bodyPartOrdinal(r.hitBodyPart());
+        buf.put((byte) bodyPart);
+        if (bodyPart == BODY_PART_OTHER) putVarInt(buf, dict.idFor(r.hitBodyPart()));
+        putVarInt(buf, dict.idFor(r.weaponMaterial().name()));
+        putVarInt(buf, dict.idFor(r.attackerName()));
+        putVarInt(buf, dict.idFor(r.victimName()));
+        putVarInt(buf, dict.idFor(loc.getWorld() != null ? loc.getWorld().getName() : ""));
+
+        byte[] out = new byte[buf.position()];
+        buf.flip().get(out);
+        return out;
+    }
+
+    /**
+     * Decodes a payload of the current version. The buffer must span exactly one payload.
+     */
+    public static CombatRecord decode(ByteBuffer buf, StringDictionary dict) {
+        buf.position(0);
+        UUID attacker = new UUID(buf.getLong(), buf.getLong());
+        UUID victim = new UUID(buf.getLong(), buf.getLong());
+        long timestamp = buf.getLong();
+        byte flags = buf.get();
+        UUID session = (flags & FLAG_SESSION) != 0 ? new UUID(buf.getLong(), buf.getLong()) : null;
+        double damage = buf.getFloat();
+        double x = buf.getInt() / COORD_SCALE, y = buf.getInt() / COORD_SCALE, z = buf.getInt() / COORD_SCALE;
+        float yaw = unpackAngle(buf.get()), pitch = unpackAngle(buf.get());
+        int armorTier = Byte.toUnsignedInt(buf.get());
+        int bodyPartOrdinal = Byte.toUnsignedInt(buf.get());
+        String bodyPart = bodyPartOrdinal == BODY_PART_OTHER ? dict.get(getVarInt(buf)) : BODY_PARTS[bodyPartOrdinal];
+        Material weapon = Material.matchMaterial(dict.get(getVarInt(buf)));
+        String attackerName = dict.get(getVarInt(buf));
+        String victimName = dict.get(getVarInt(buf));
+        World world = resolveWorld(dict.get(getVarInt(buf)));
+
+        return new CombatRecord(
+                attacker, attackerName,
+                victim, victimName,
+                weapon != null ? weapon : Material.AIR, bodyPart,
+                new Location(world, x, y, z, yaw, pitch),
+                damage,
+                (flags & FLAG_FATAL) != 0,
+                (flags & FLAG_BLOCKING) != 0,
+                armorTier,
+                session,
+                timestamp
+        );
+    }
+
+    private static World resolveWorld(String name) {
+        return name.isEmpty() ? null : Bukkit.getWorld(name);
+    }
+
+    private static int quantize(double coord) {
+        return (int) Math.round(coord * COORD_SCALE);
+    }
+
+    private static byte packAngle(float degrees) {
+        return (byte) Math.round(degrees * 256.0f / 360.0f);
+    }
+
+    private static float unpackAngle(byte packed) {
+        return packed * 360.0f / 256.0f;
+    }
+
+    private static int bodyPartOrdinal(String bodyPart) {
+        for (int i = 0; i < BODY_PARTS.length; i++) {
+            if (BODY_PARTS[i].equals(bodyPart)) return i;
+        }
+        return BODY_PART_OTHER;
+    }
+
+    private static void putVarInt(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buf) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,526 @@
+package com.example;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Append-only binary storage for combat records, partitioned by UTC day (day-2024-05-01.bin, ...).
+ * A save only appends the new records to the partitions of their timestamps.
+ * Records are encoded with CombatRecordCodec; each partition has a StringDictionary sidecar (day-....dict).
+ * Each record is length-prefixed so scans can skip records by attacker/victim/time without decoding them.
+ * A PlayerRecordIndex maps each player to the records involving them, so per-player reads seek directly;
+ * a PartitionManifest keeps per-day stats so retention unlinks whole days and rewrites only the boundary day.
+ */
+public class CombatSegmentStore {
+    private static final int MAGIC = 0x42584353; // "BXCS"
+    private static final int HEADER_BYTES = 6;
+    private static final long DAY_MS = 86_400_000L;
+
+    private static final int KEY_BYTES = CombatRecordCodec.KEY_BYTES;
+
+    private final Logger logger;
+    private final File dir;
+    private final PlayerRecordIndex index;
+    private final PartitionManifest manifest;
+    private final Map<Integer, StringDictionary> dictionaries = new HashMap<>();
+    private final Set<Integer> checkedTails = new HashSet<>();
+
+    public CombatSegmentStore(File dir, Logger logger) {
+        this.dir = dir;
+        this.logger = logger;
+        if (!dir.exists()) dir.mkdirs();
+        this.index = new PlayerRecordIndex(new File(dir, "player-index.bin"), logger);
+        this.manifest = new PartitionManifest(new File(dir, "manifest.yml"), logger);
+        index.load();
+        manifest.load();
+        reconcileManifest();
+        catchUpIndex();
+    }
+
+    public static int dayOf(long timestamp) {
+        return (int) Math.floorDiv(timestamp, DAY_MS);
+    }
+
+    /**
+     * Appends records to the partitions of their days. Each partition is written all or nothing: a failed append is
+     * cut back off before the exception propagates. Days in {@code committedDays} are skipped and every day written
+     * here is added to it, so retrying the same records after a partial failure does not append a day twice.
+     */
+    public synchronized void append(Collection<CombatRecord> records, Set<Integer> committedDays) throws IOException {
+        TreeMap<Integer, List<CombatRecord>> byDay = new TreeMap<>();
+        for (CombatRecord record : records) {
+            int day = dayOf(record.timestamp());
+            if (!committedDays.contains(day)) byDay.computeIfAbsent(day, k -> new ArrayList<>()).add(record);
+        }
+        if (byDay.isEmpty()) return;
+
+        try {
+            for (var entry : byDay.entrySet()) {
+                List<PlayerRecordIndex.Entry> entries = appendToPartition(entry.getKey(), entry.getValue());
+                committedDays.add(entry.getKey());
+                try {
+                    index.append(entries);
+                } catch (IOException e) {
+                    // The records are on disk; catchUpIndex indexes them on the next load
+                    logger.severe("Failed to update player index: " + e.getMessage());
+                }
+            }
+        } finally {
+            // Only committed days changed the manifest; it is reconciled on load if this save is lost
+            try {
+                manifest.save();
+            } catch (IOException e) {
+                logger.severe("Failed to save combat manifest: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends one day's records and returns their index postings. On failure the partition is truncated back to
+     * its length before the append and the manifest is left untouched.
+     */
+    private List<PlayerRecordIndex.Entry> appendToPartition(int day, List<CombatRecord> records) throws IOException {
+        File part = partitionFile(day);
+        StringDictionary dict = dictionary(day);
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        for (CombatRecord record : records) {
+            payloads.add(CombatRecordCodec.encode(record, dict));
+        }
+        // New dictionary ids must be durable before any record references them
+        dict.flush(dictionaryFile(day));
+        if (!checkedTails.contains(day)) {
+            truncateTornTail(part);
+            checkedTails.add(day);
+        }
+
+        long start = part.exists() ? part.length() : 0;
+        long position = start == 0 ? HEADER_BYTES : start;
+        List<PlayerRecordIndex.Entry> entries = new ArrayList<>(records.size() * 2);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(part, true), 64 * 1024))) {
+            if (start == 0) writeHeader(out);
+            for (int i = 0; i < payloads.size(); i++) {
+                CombatRecord record = records.get(i);
+                byte[] payload = payloads.get(i);
+                out.writeInt(payload.length);
+                out.write(payload);
+                addPostings(entries, record.attackerUUID(), record.victimUUID(), day, (int) position, payload.length);
+                position += 4 + payload.length;
+            }
+        } catch (IOException e) {
+            rollBack(day, start, e);
+            throw e;
+        }
+
+        PartitionManifest.Partition stats = manifest.getOrCreate(day);
+        for (CombatRecord record : records) stats.include(record.timestamp());
+        stats.bytes = part.length();
+        return entries;
+    }
+
+    /**
+     * Cuts off the bytes of a failed append. If that fails too, the partition's tail is checked again before
+     * its next append.
+     */
+    private void rollBack(int day, long length, IOException cause) {
+        try (FileChannel channel = FileChannel.open(partitionFile(day).toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            checkedTails.remove(day);
+        }
+    }
+
+    /**
+     * Cuts a partition back to the end of its last complete record, so records appended after an interrupted
+     * append are not hidden behind the torn tail. Done once per partition before the first append of this run, and
+     * again after a failed append could not be rolled back.
+     */
+    private void truncateTornTail(File part) throws IOException {
+        if (!part.exists()) return;
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(part.toPath()));
+        long end;
+        if (buf.remaining() < HEADER_BYTES) {
+            end = 0; // Torn header; the append writes a new one
+        } else if (buf.getInt(0) != MAGIC) {
+            return;
+        } else {
+            buf.position(HEADER_BYTES);
+            while (buf.remaining() >= 4) {
+                int length = buf.getInt(buf.position());
+                if (length < KEY_BYTES || length > buf.remaining() - 4) break;
+                buf.position(buf.position() + 4 + length);
+            }
+            end = buf.position();
+        }
+        if (end == buf.capacity()) return;
+        try (FileChannel channel = FileChannel.open(part.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(end);
+        }
+        logger.warning("Truncated torn tail of " + part.getName() + " at offset " + end + " (" + (buf.capacity() - end) + " bytes).");
+    }
+
+    /**
+     * Decodes the records involving a player (as attacker or victim) via the index,
+     * reading only those records. The key filter narrows further, e.g. to attacker only.
+     */
+    public synchronized List<CombatRecord> readInvolving(UUID player, KeyFilter filter) {
+        List<CombatRecord> result = new ArrayList<>();
+        long[] postings = index.lookup(player);
+        int i = 0;
+        while (i < postings.length) {
+            int day = PlayerRecordIndex.segmentOf(postings[i]);
+            File part = partitionFile(day);
+            try (FileChannel channel = FileChannel.open(part.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                channel.read(header, 0);
+                short version = header.getShort(4);
+                if (version != CombatRecordCodec.VERSION) throw new IOException("unsupported format version " + version);
+                StringDictionary dict = dictionary(day);
+                ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+                for (; i < postings.length && PlayerRecordIndex.segmentOf(postings[i]) == day; i++) {
+                    long offset = PlayerRecordIndex.offsetOf(postings[i]);
+                    lengthBuf.clear();
+                    channel.read(lengthBuf, offset);
+                    int length = lengthBuf.flip().getInt();
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    channel.read(payload, offset + 4);
+                    payload.flip();
+                    UUID attacker = new UUID(payload.getLong(0), payload.getLong(8));
+                    UUID victim = new UUID(payload.getLong(16), payload.getLong(24));
+                    long timestamp = payload.getLong(32);
+                    if (filter.test(attacker, victim, timestamp)) {
+                        result.add(CombatRecordCodec.decode(payload, dict));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.severe("Failed to read indexed records from " + part.getName() + ": " + e.getMessage());
+                while (i < postings.length && PlayerRecordIndex.segmentOf(postings[i]) == day) i++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes every stored record, one partition at a time, oldest partition first.
+     */
+    public synchronized void forEachRecord(Consumer<CombatRecord> action) {
+        for (int day : partitionDays()) {
+            List<CombatRecord> records = new ArrayList<>();
+            scanPartition(day, (attacker, victim, timestamp) -> true, records);
+            records.forEach(action);
+        }
+    }
+
+    /**
+     * Retention: removes every record older than the cutoff.
+     * Partitions entirely before the cutoff are unlinked, partitions entirely after it are untouched,
+     * and only a partition straddling the cutoff is rewritten.
+     * @return Number of records removed.
+     */
+    public synchronized long deleteOlderThan(long cutoff) {
+        long removed = 0;
+        boolean changed = false;
+        for (PartitionManifest.Partition p : manifest.all()) {
+            if (p.minTimestamp >= cutoff) continue;
+            if (p.maxTimestamp < cutoff) {
+                try {
+                    Files.deleteIfExists(partitionFile(p.day).toPath());
+                    Files.deleteIfExists(dictionaryFile(p.day).toPath());
+                    dictionaries.remove(p.day);
+                } catch (IOException e) {
+                    logger.severe("Failed to delete " + partitionFile(p.day).getName() + ": " + e.getMessage());
+                    continue;
+                }
+                index.dropSegment(p.day);
+                manifest.remove(p.day);
+                removed += p.records;
+            } else {
+                removed += rewritePartition(p.day, (a, v, t) -> t < cutoff);
+            }
+            changed = true;
+        }
+        if (changed) persistMetadata();
+        return removed;
+    }
+
+    /**
+     * Removes records involving the player that are older than the cutoff.
+     * Only partitions the index lists for the player, and that start before the cutoff, are visited.
+     * @return Number of records removed.
+     */
+    public synchronized long deleteInvolving(UUID player, long cutoff) {
+        long removed = 0;
+        KeyFilter filter = (a, v, t) -> (a.equals(player) || v.equals(player)) && t < cutoff;
+        for (int day : index.segmentsFor(player)) {
+            PartitionManifest.Partition p = manifest.get(day);
+            if (p != null && p.minTimestamp >= cutoff) continue;
+            removed += rewritePartition(day, filter);
+        }
+        if (removed > 0) persistMetadata();
+        return removed;
+    }
+
+    /**
+     * Rewrites one partition without the records matching the filter, and re-indexes it.
+     * @return Number of records removed.
+     */
+    private int rewritePartition(int day, KeyFilter remove) {
+        File part = partitionFile(day);
+        List<CombatRecord> all = new ArrayList<>();
+        scanPartition(day, (a, v, t) -> true, all);
+        int before = all.size();
+        all.removeIf(r -> remove.test(r.attackerUUID(), r.victimUUID(), r.timestamp()));
+        if (all.size() == before) return 0;
+        try {
+            rewritePartitionFile(day, all);
+        } catch (IOException e) {
+            logger.severe("Failed to rewrite " + part.getName() + ": " + e.getMessage());
+            return 0;
+        }
+        index.dropSegment(day);
+        manifest.remove(day);
+        if (part.exists()) {
+            PartitionManifest.Partition stats = manifest.getOrCreate(day);
+            all.forEach(r -> stats.include(r.timestamp()));
+            stats.bytes = part.length();
+            indexSegment(day, HEADER_BYTES);
+        }
+        return before - all.size();
+    }
+
+    private void persistMetadata() {
+        try {
+            index.rewrite();
+            manifest.save();
+        } catch (IOException e) {
+            logger.severe("Failed to save combat index/manifest: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds manifest entries for partitions whose size no longer matches (appends after the last
+     * manifest save, or a lost manifest) and drops entries whose file is gone.
+     */
+    private void reconcileManifest() {
+        boolean changed = false;
+        Set<Integer> onDisk = new HashSet<>(partitionDays());
+        for (PartitionManifest.Partition p : manifest.all()) {
+            if (!onDisk.contains(p.day)) {
+                manifest.remove(p.day);
+                changed = true;
+            }
+        }
+        for (int day : onDisk) {
+            File part = partitionFile(day);
+            PartitionManifest.Partition p = manifest.get(day);
+            if (p != null && p.bytes == part.length()) continue;
+
+            PartitionManifest.Partition rebuilt = new PartitionManifest.Partition(day);
+            List<CombatRecord> records = new ArrayList<>();
+            scanPartition(day, (a, v, t) -> {
+                rebuilt.include(t);
+                return false;
+            }, records);
+            rebuilt.bytes = part.length();
+            manifest.put(rebuilt);
+            changed = true;
+        }
+        if (changed) {
+            try {
+                manifest.save();
+            } catch (IOException e) {
+                logger.severe("Failed to save combat manifest: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Indexes any records a previous run appended without indexing (crash between the two writes,
+     * or a missing/discarded index file).
+     */
+    private void catchUpIndex() {
+        int caughtUp = 0;
+        for (int day : partitionDays()) {
+            long end = index.indexedEnd(day);
+            caughtUp += indexSegment(day, end < 0 ? HEADER_BYTES : end);
+        }
+        if (caughtUp > 0) logger.info("Indexed " + caughtUp + " combat records missing from the player index.");
+    }
+
+    /**
+     * Adds postings for the records of a partition from a byte offset to its end.
+     * @return Number of records indexed.
+     */
+    private int indexSegment(int day, long from) {
+        File part = partitionFile(day);
+        if (part.length() <= from) return 0;
+        ByteBuffer buf;
+        try {
+            buf = ByteBuffer.wrap(Files.readAllBytes(part.toPath()));
+        } catch (IOException e) {
+            logger.severe("Failed to read " + part.getName() + ": " + e.getMessage());
+            return 0;
+        }
+        if (buf.remaining() < HEADER_BYTES || buf.getInt(0) != MAGIC || buf.getShort(4) != CombatRecordCodec.VERSION) return 0;
+
+        List<PlayerRecordIndex.Entry> entries = new ArrayList<>();
+        int count = 0;
+        buf.position((int) from);
+        while (buf.remaining() >= 4) {
+            int offset = buf.position();
+            int length = buf.getInt();
+            if (length < KEY_BYTES || length > buf.remaining()) break;
+            UUID attacker = new UUID(buf.getLong(offset + 4), buf.getLong(offset + 12));
+            UUID victim = new UUID(buf.getLong(offset + 20), buf.getLong(offset + 28));
+            addPostings(entries, attacker, victim, day, offset, length);
+            buf.position(offset + 4 + length);
+            count++;
+        }
+        try {
+            index.append(entries);
+        } catch (IOException e) {
+            logger.severe("Failed to update player index: " + e.getMessage());
+        }
+        return count;
+    }
+
+    private static void addPostings(List<PlayerRecordIndex.Entry> entries, UUID attacker, UUID victim, int day, int offset, int length) {
+        entries.add(new PlayerRecordIndex.Entry(attacker, day, offset, length));
+        if (!victim.equals(attacker)) {
+            entries.add(new PlayerRecordIndex.Entry(victim, day, offset, length));
+        }
+    }
+
+    /**
+     * Replaces a partition's contents. The existing dictionary is kept and extended, so a crash
+     * between the dictionary flush and the file move leaves both old and new contents decodable.
+     */
+    private void rewritePartitionFile(int day, List<CombatRecord> records) throws IOException {
+        File part = partitionFile(day);
+        if (records.isEmpty()) {
+            Files.deleteIfExists(part.toPath());
+            Files.deleteIfExists(dictionaryFile(day).toPath());
+            dictionaries.remove(day);
+            return;
+        }
+        StringDictionary dict = dictionary(day);
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        for (CombatRecord record : records) {
+            payloads.add(CombatRecordCodec.encode(record, dict));
+        }
+        dict.flush(dictionaryFile(day));
+
+        File tmp = new File(dir, part.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            writeHeader(out);
+            for (byte[] payload : payloads) {
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        }
+        Files.move(tmp.toPath(), part.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Decodes the records of a partition accepted by the key filter.
+     */
+    private void scanPartition(int day, KeyFilter filter, List<CombatRecord> out) {
+        File file = partitionFile(day);
+        ByteBuffer buf;
+        try {
+            buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            logger.severe("Failed to read " + file.getName() + ": " + e.getMessage());
+            return;
+        }
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC) {
+            logger.warning("Skipping " + file.getName() + ": not a combat segment.");
+            return;
+        }
+        short version = buf.getShort();
+        if (version != CombatRecordCodec.VERSION) {
+            logger.warning("Skipping " + file.getName() + ": unsupported format version " + version);
+            return;
+        }
+        StringDictionary dict = dictionary(day);
+        while (buf.remaining() >= 4) {
+            int length = buf.getInt();
+            if (length < KEY_BYTES || length > buf.remaining()) {
+                // Torn tail from an interrupted append; everything before it is intact
+                logger.warning("Truncated record in " + file.getName() + " at offset " + (buf.position() - 4));
+                return;
+            }
+            int start = buf.position();
+            UUID attacker = new UUID(buf.getLong(start), buf.getLong(start + 8));
+            UUID victim = new UUID(buf.getLong(start + 16), buf.getLong(start + 24));
+            long timestamp = buf.getLong(start + 32);
+            if (filter.test(attacker, victim, timestamp)) {
+                try {
+                    out.add(CombatRecordCodec.decode(buf.slice(start, length), dict));
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    logger.warning("Corrupt record in " + file.getName() + " at offset " + start);
+                }
+            }
+            buf.position(start + length);
+        }
+    }
+
+    private StringDictionary dictionary(int day) {
+        return dictionaries.computeIfAbsent(day, d -> {
+            try {
+                return StringDictionary.load(dictionaryFile(d));
+            } catch (IOException e) {
+                logger.severe("Failed to load " + dictionaryFile(d).getName() + ": " + e.getMessage());
+                return new StringDictionary();
+            }
+        });
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(CombatRecordCodec.VERSION);
+    }
+
+    private File partitionFile(int day) {
+        return new File(dir, "day-" + LocalDate.ofEpochDay(day) + ".bin");
+    }
+
+    private File dictionaryFile(int day) {
+        return new File(dir, "day-" + LocalDate.ofEpochDay(day) + ".dict");
+    }
+
+    private List<Integer> partitionDays() {
+        List<Integer> days = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.startsWith("day-") && name.endsWith(".bin"));
+        if (files == null) return days;
+        for (File f : files) {
+            try {
+                days.add((int) LocalDate.parse(f.getName().substring(4, f.getName().length() - 4)).toEpochDay());
+            } catch (RuntimeException ignored) {
+            }
+        }
+        Collections.sort(days);
+        return days;
+    }
+
+    /**
+     * Predicate over the fixed key fields of a record; evaluated before the rest is decoded.
+     */
+    @FunctionalInterface
+    public interface KeyFilter {
+        boolean test(UUID attacker, UUID victim, long timestamp);
+
+        static KeyFilter involving(UUID player) {
+            return (a, v, t) -> a.equals(player) || v.equals(player);
+        }
+    }
+}
@@ -2,99 +2,191 @@
 // Abstracts all settings to config.yml; overridable by OP commands or file edits + /fight reload
 package com.example;
 
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.List;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.logging.Logger;
 
 /**
  * Centralized config loader: Provides getters for feature gates, timings, scoring heuristics.
  * Reloadable via command; defaults populated on first run.
+ * Values are parsed once into an immutable Settings snapshot on load/reload and swapped atomically,
+ * so getters on hot paths (hits, scoring) are plain field reads.
  */
 public class ConfigManager {
     private final JavaPlugin plugin;
+    private volatile Settings settings;
+
+    /**
+     * Typed, immutable view of config.yml at one point in time.
+     */
+    public record Settings(
+            boolean combatTrackingEnabled,
+            boolean fightModeEnabled,
+            long defaultFightDurationSeconds,
+            long escrowTimeoutSeconds,
+            int autoFightHitCount,
+            int autoFightTimeWindowSeconds,
+            String fightPenaltyMode,
+            boolean fightBroadcastEnabled,
+            boolean keepInventoryDuringFight,
+            boolean keepInventoryFightEnd,
+            int persistenceMaxQueuedWrites,
+            double hitDamageMultiplier,
+            int blockHitterPoints,
+            int blockBlockerPoints,
+            int killBasePoints,
+            int armorBonusPerTier,
+            int weakWeaponBonusPerTier,
+            Set<Material> highValueMaterials,
+            boolean armorTierCrossCheck,
+            int tabListRefreshTicks,
+            long combatCacheBudgetBytes
+    ) {
+        static Settings from(FileConfiguration config, Logger logger) {
+            EnumSet<Material> highValue = EnumSet.noneOf(Material.class);
+            for (String name : config.getStringList("highValueItems")) {
+                Material material = Material.matchMaterial(name);
+                if (material != null) {
+                    highValue.add(material);
+                } else {
+                    logger.warning("Unknown material in highValueItems: " + name);
+                }
+            }
+            return new Settings(
+                    config.getBoolean("enableCombatTracking", true),
+                    config.getBoolean("enableFightMode", true),
+                    config.getLong("fightDefaultDurationSeconds", 600L),
+                    config.getLong("escrowTimeoutSeconds", 300L),
+                    config.getInt("autoFight.hitCount", 3),
+                    config.getInt("autoFight.timeWindowSeconds", 10),
+                    config.getString("fight.penaltyMode", "STEAL").toUpperCase(),
+                    config.getBoolean("fight.broadcast", true),
+                    config.getBoolean("fight.KeepInventoryDuringFight", true),
+                    config.getBoolean("fight.KeepInventoryFightEnd", false),
+                    config.getInt("persistence.maxQueuedWrites", 4),
+                    config.getDouble("scoring.hitDamageMultiplier", 2.0),
+                    config.getInt("scoring.blockHitterPoints", 1),
+                    config.getInt("scoring.blockBlockerPoints", 5),
+                    config.getInt("scoring.killBasePoints", 50),
+                    config.getInt("scoring.armorBonusPerTier", 10),
+                    config.getInt("scoring.weakWeaponBonusPerTier", 15),
+                    Collections.unmodifiableSet(highValue),
+                    config.getBoolean("armorTierCache.crossCheck", false),
+                    Math.max(1, config.getInt("tabList.refreshTicks", 600)),
+                    Math.max(256L, config.getLong("combatCache.memoryBudgetKb", 8192L)) * 1024L
+            );
+        }
+    }
 
     public ConfigManager(JavaPlugin plugin) {
         this.plugin = plugin;
+        this.settings = Settings.from(plugin.getConfig(), plugin.getLogger());
     }
 
     public void reload() {
         plugin.reloadConfig();
+        settings = Settings.from(plugin.getConfig(), plugin.getLogger());
+    }
+
+    /**
+     * Current snapshot; read it once per operation when several values are needed together.
+     */
+    public Settings getSettings() {
+        return settings;
     }
 
     // Feature gates
     public boolean isCombatTrackingEnabled() {
-        return plugin.getConfig().getBoolean("enableCombatTracking", true);
+        return settings.combatTrackingEnabled();
     }
 
     public boolean isFightModeEnabled() {
-        return plugin.getConfig().getBoolean("enableFightMode", true);
+        return settings.fightModeEnabled();
     }
 
     // Fight settings
     public long getDefaultFightDurationSeconds() {
-        return plugin.getConfig().getLong("fightDefaultDurationSeconds", 600L);
+        return settings.defaultFightDurationSeconds();
     }
 
     public long getEscrowTimeoutSeconds() {
-        return plugin.getConfig().getLong("escrowTimeoutSeconds", 300L);
+        return settings.escrowTimeoutSeconds();
     }
 
     public int getAutoFightHitCount() {
-        return plugin.getConfig().getInt("autoFight.hitCount", 3);
+        return settings.autoFightHitCount();
     }
 
     public int getAutoFightTimeWindowSeconds() {
-        return plugin.getConfig().getInt("autoFight.timeWindowSeconds", 10);
+        return settings.autoFightTimeWindowSeconds();
     }
 
     public String getFightPenaltyMode() {
-        return plugin.getConfig().getString("fight.penaltyMode", "STEAL").toUpperCase();
+        return settings.fightPenaltyMode();
     }
 
     public boolean isFightBroadcastEnabled() {
-        return plugin.getConfig().getBoolean("fight.broadcast", true);
+        return settings.fightBroadcastEnabled();
     }
 
     public boolean isKeepInventoryDuringFightEnabled() {
-        return plugin.getConfig().getBoolean("fight.KeepInventoryDuringFight", true);
+        return settings.keepInventoryDuringFight();
     }
 
     public boolean isKeepInventoryFightEndEnabled() {
-        return plugin.getConfig().getBoolean("fight.KeepInventoryFightEnd", false);
+        return settings.keepInventoryFightEnd();
+    }
+
+    // Persistence
+    public int getPersistenceMaxQueuedWrites() {
+        return settings.persistenceMaxQueuedWrites();
     }
 
     // Scoring heuristics
     public double getHitDamageMultiplier() {
-        return plugin.getConfig().getDouble("scoring.hitDamageMultiplier", 2.0);
+        return settings.hitDamageMultiplier();
     }
 
     public int getBlockHitterPoints() {
-        return plugin.getConfig().getInt("scoring.blockHitterPoints", 1);
+        return settings.blockHitterPoints();
     }
 
     public int getBlockBlockerPoints() {
-        return plugin.getConfig().getInt("scoring.blockBlockerPoints", 5);
+        return settings.blockBlockerPoints();
     }
 
     public int getKillBasePoints() {
-        return plugin.getConfig().getInt("scoring.killBasePoints", 50);
+        return settings.killBasePoints();
     }
 
     public int getArmorBonusPerTier() {
-        return plugin.getConfig().getInt("scoring.armorBonusPerTier", 10);
+        return settings.armorBonusPerTier();
     }
 
     public int getWeakWeaponBonusPerTier() {
-        return plugin.getConfig().getInt("scoring.weakWeaponBonusPerTier", 15);
+        return settings.weakWeaponBonusPerTier();
+    }
+
+    public long getCombatCacheBudgetBytes() {
+        return settings.combatCacheBudgetBytes();
+    }
+
+    // Tab list
+    public int getTabListRefreshTicks() {
+        return settings.tabListRefreshTicks();
     }
 
     // High-value items for end-game theft
-    public List<String> getHighValueMaterials() {
-        return plugin.getConfig().getStringList("highValueItems");
+    public Set<Material> getHighValueMaterials() {
+        return settings.highValueMaterials();
     }
 
-    public boolean isHighValueMaterial(String materialName) {
-        return getHighValueMaterials().stream()
-                .anyMatch(mat -> mat.equalsIgnoreCase(materialName));
+    public boolean isHighValueMaterial(Material material) {
+        return settings.highValueMaterials().contains(material);
     }
-}
\ No newline at end of file
+}
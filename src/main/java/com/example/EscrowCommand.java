@@ -68,12 +68,15 @@ public class EscrowCommand implements CommandExecutor, TabCompleter {
                 sender.sendMessage(ChatColor.YELLOW + "Time remaining: " + remaining + " seconds");
             }
             
-            int invCount = countItems(record.inventory);
-            int enderCount = countItems(record.enderChest);
-            
-            sender.sendMessage(ChatColor.AQUA + "Inventory Items: " + invCount);
-            sender.sendMessage(ChatColor.AQUA + "Ender Chest Items: " + enderCount);
-            sender.sendMessage(ChatColor.GOLD + "-----------------------------");
+            // Items live on disk until needed; the counts follow once they are read
+            escrowManager.loadItems(record, loaded -> {
+                int invCount = countItems(loaded.getInventory());
+                int enderCount = countItems(loaded.getEnderChest());
+
+                sender.sendMessage(ChatColor.AQUA + "Inventory Items: " + invCount);
+                sender.sendMessage(ChatColor.AQUA + "Ender Chest Items: " + enderCount);
+                sender.sendMessage(ChatColor.GOLD + "-----------------------------");
+            }, () -> sender.sendMessage(ChatColor.RED + "Could not read the escrowed items; see console."));
         } else {
             sender.sendMessage(ChatColor.RED + "Unknown action. Use 'release' or 'list'.");
         }
@@ -102,11 +105,7 @@ public class EscrowCommand implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             String partial = args[0].toLowerCase();
-            for (String name : nameUuidManager.getAllKnownNames()) {
-                if (name.toLowerCase().startsWith(partial)) {
-                    completions.add(name);
-                }
-            }
+            completions.addAll(nameUuidManager.completeNames(partial, NameUuidManager.MAX_COMPLETIONS));
         } else if (args.length == 2) {
             String partial = args[1].toLowerCase();
             if ("release".startsWith(partial)) completions.add("release");
@@ -1,41 +1,68 @@
 package com.example;
 
+import com.destroystokyo.paper.event.player.PlayerPostRespawnEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Manages item escrow for players who combat log during a fight.
  * Purpose: Sequester items on quit, release on timeout or command.
  * Pattern: Manager/Service with Bukkit Events.
+ * Expiry is driven by a queue ordered by expiryTime, so the periodic check only looks at records that are due.
+ * Each record is its own file, escrow/<uuid>.bin (header with expiry and release state, then the inventory and ender chest
+ * as ItemStack.serializeItemsAsBytes payloads), written atomically on the persistence thread. Every write and delete of a
+ * file takes a per-player sequence number and only the latest one touches the file, so a stale write can never bring
+ * back a record whose items were already handed out. Only the headers are read at startup; items are read when a
+ * restore or /escrow lookup needs them.
+ * A restore that has to wait for a safe spot is kept as one pending entry per player, re-checked when the player moves
+ * or lands and dropped on quit. Each entry also has one low-frequency recheck task as a fallback for players who stay
+ * where they are and so send no move events.
  */
 public class EscrowManager implements Listener {
+    private static final int MAGIC = 0x42584553; // "BXES"
+    private static final short FORMAT_VERSION = 1;
+    private static final float SAFE_FALL_DISTANCE = 2.0f;
+    private static final long FALLBACK_RECHECK_TICKS = 100L;
+
     private final JavaPlugin plugin;
     private final FightManager fightManager;
     private final ConfigManager configManager;
-    private final File file;
+    private final PersistenceExecutor persistenceExecutor;
+    private final File dir;
     private final Map<UUID, EscrowRecord> escrows = new ConcurrentHashMap<>();
+    private final PriorityQueue<EscrowRecord> expiryQueue = new PriorityQueue<>(Comparator.comparingLong(r -> r.expiryTime));
+    private final Map<UUID, PendingRestore> pendingRestores = new HashMap<>();
+    private final Map<UUID, Long> latestFileOps = new ConcurrentHashMap<>(); // Newest queued write/delete per file
+    private long fileOpSequence;
 
-    public EscrowManager(JavaPlugin plugin, FightManager fightManager, ConfigManager configManager) {
+    public EscrowManager(JavaPlugin plugin, FightManager fightManager, ConfigManager configManager, PersistenceExecutor persistenceExecutor) {
         this.plugin = plugin;
         this.fightManager = fightManager;
         this.configManager = configManager;
-        this.file = new File(plugin.getDataFolder(), "escrow.yml");
+        this.persistenceExecutor = persistenceExecutor;
+        this.dir = new File(plugin.getDataFolder(), "escrow");
+        migrateLegacyYaml(new File(plugin.getDataFolder(), "escrow.yml"));
         load();
 
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
@@ -46,18 +73,20 @@ public class EscrowManager implements Listener {
             public void run() {
                 checkExpirations();
             }
-        }.runTaskTimer(plugin, 200L, 200L); // Every 10 seconds
+        }.runTaskTimer(plugin, 20L, 20L); // Every second; O(1) when nothing is due
     }
 
     /**
-     * Record of sequestered items.
+     * Record of sequestered items. Expiry and release state stay resident; the item arrays are only held
+     * while the record is being written or after loadItems, and are null otherwise.
      */
     public static class EscrowRecord {
         public final UUID playerUuid;
         public final long expiryTime;
-        public final ItemStack[] inventory;
-        public final ItemStack[] enderChest;
         public boolean released;
+        private ItemStack[] inventory;
+        private ItemStack[] enderChest;
+        private List<PendingLoad> pendingLoads;
 
         public EscrowRecord(UUID playerUuid, long expiryTime, ItemStack[] inventory, ItemStack[] enderChest, boolean released) {
             this.playerUuid = playerUuid;
@@ -67,14 +96,16 @@ public class EscrowManager implements Listener {
             this.released = released;
         }
 
-        public Map<String, Object> serialize() {
-            Map<String, Object> map = new HashMap<>();
-            map.put("playerUuid", playerUuid.toString());
-            map.put("expiryTime", expiryTime);
-            map.put("inventory", Arrays.asList(inventory));
-            map.put("enderChest", Arrays.asList(enderChest));
-            map.put("released", released);
-            return map;
+        public boolean isLoaded() {
+            return inventory != null;
+        }
+
+        public ItemStack[] getInventory() {
+            return inventory;
+        }
+
+        public ItemStack[] getEnderChest() {
+            return enderChest;
         }
 
         @SuppressWarnings("unchecked")
@@ -93,39 +124,199 @@ public class EscrowManager implements Listener {
         }
     }
 
+    private record PendingLoad(Consumer<EscrowRecord> action, Runnable onFailure) {}
+
+    /**
+     * A restore waiting for its player to reach a safe spot. At most one per player.
+     */
+    private static final class PendingRestore {
+        private final EscrowRecord record;
+        private BukkitTask recheck;  // Set while a post-landing check is scheduled
+        private BukkitTask fallback; // Periodic recheck while the entry exists
+        private boolean readFailed;  // The item read failed; only the fallback task retries, not every move
+
+        PendingRestore(EscrowRecord record) {
+            this.record = record;
+        }
+    }
+
+    /**
+     * Builds the resident index from the header of each escrow/<uuid>.bin; items stay on disk.
+     */
     private void load() {
-        if (!file.exists()) return;
-        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".bin"));
+        if (files == null) return;
+        for (File f : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 64))) {
+                if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                    TelemetryLogger.warning("Skipping unreadable escrow file " + f.getName());
+                    continue;
+                }
+                UUID uuid = UUID.fromString(f.getName().substring(0, f.getName().length() - 4));
+                EscrowRecord record = new EscrowRecord(uuid, in.readLong(), null, null, in.readBoolean());
+                escrows.put(uuid, record);
+                if (!record.released) expiryQueue.add(record);
+            } catch (Exception e) {
+                TelemetryLogger.error("Loading escrow index from " + f.getName(), e);
+            }
+        }
+        TelemetryLogger.info("Indexed " + escrows.size() + " escrow records.");
+    }
+
+    /**
+     * One-time conversion of the old single escrow.yml into per-player files.
+     */
+    private void migrateLegacyYaml(File legacy) {
+        if (!legacy.exists()) return;
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(legacy);
+        int migrated = 0, failed = 0;
         for (String key : yaml.getKeys(false)) {
             try {
-                UUID uuid = UUID.fromString(key);
                 ConfigurationSection section = yaml.getConfigurationSection(key);
-                if (section != null) {
-                    escrows.put(uuid, EscrowRecord.deserialize(section.getValues(false)));
-                }
+                if (section == null) continue;
+                EscrowRecord record = EscrowRecord.deserialize(section.getValues(false));
+                writeRecord(record.playerUuid, record.expiryTime, record.released,
+                        ItemStack.serializeItemsAsBytes(record.inventory), ItemStack.serializeItemsAsBytes(record.enderChest));
+                yaml.set(key, null);
+                migrated++;
             } catch (Exception e) {
-                TelemetryLogger.error("Loading escrow for " + key, e);
+                TelemetryLogger.error("Migrating escrow for " + key, e);
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            // Keep only the records that failed, so the next start retries them without re-importing the others
+            try {
+                yaml.save(legacy);
+            } catch (IOException e) {
+                TelemetryLogger.error("Saving unmigrated escrow records to " + legacy.getName(), e);
             }
+            TelemetryLogger.warning("Migrated " + migrated + " escrow records; " + failed + " failed and stay in " + legacy.getName() + ".");
+        } else if (legacy.renameTo(new File(legacy.getParentFile(), legacy.getName() + ".migrated"))) {
+            TelemetryLogger.info("Migrated " + migrated + " escrow records from " + legacy.getName() + ".");
         }
-        TelemetryLogger.info("Loaded " + escrows.size() + " escrow records.");
     }
 
-    public void save() {
-        YamlConfiguration yaml = new YamlConfiguration();
-        for (Map.Entry<UUID, EscrowRecord> entry : escrows.entrySet()) {
-            yaml.createSection(entry.getKey().toString(), entry.getValue().serialize());
+    private File recordFile(UUID uuid) {
+        return new File(dir, uuid + ".bin");
+    }
+
+    /**
+     * Writes one record atomically. I/O thread (or startup).
+     */
+    private void writeRecord(UUID uuid, long expiryTime, boolean released, byte[] inventory, byte[] enderChest) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        File file = recordFile(uuid);
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(expiryTime);
+            out.writeBoolean(released);
+            out.writeInt(inventory.length);
+            out.write(inventory);
+            out.writeInt(enderChest.length);
+            out.write(enderChest);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Encodes a loaded record on the main thread and writes it on the I/O thread.
+     * Once written, the items are dropped from memory unless something is still using them.
+     */
+    private void persist(EscrowRecord record) {
+        byte[] inventory = ItemStack.serializeItemsAsBytes(record.inventory);
+        byte[] enderChest = ItemStack.serializeItemsAsBytes(record.enderChest);
+        long expiryTime = record.expiryTime;
+        boolean released = record.released;
+        UUID uuid = record.playerUuid;
+        long op = nextFileOp(uuid);
+        persistenceExecutor.submit("escrow " + uuid, () -> {
+            if (latestFileOps.getOrDefault(uuid, -1L) != op) return; // Superseded by a newer write or delete
+            writeRecord(uuid, expiryTime, released, inventory, enderChest);
+            latestFileOps.remove(uuid, op);
+        }, error -> {
+            if (error == null) {
+                record.inventory = null;
+                record.enderChest = null;
+            }
+        });
+    }
+
+    private void delete(UUID uuid) {
+        File file = recordFile(uuid);
+        long op = nextFileOp(uuid);
+        persistenceExecutor.submit("escrow delete " + uuid, () -> {
+            if (latestFileOps.getOrDefault(uuid, -1L) != op) return;
+            Files.deleteIfExists(file.toPath());
+            latestFileOps.remove(uuid, op);
+        }, null);
+    }
+
+    /**
+     * Claims the next file operation for a player's escrow file; operations it supersedes are skipped. Main thread.
+     */
+    private long nextFileOp(UUID uuid) {
+        long op = ++fileOpSequence;
+        latestFileOps.put(uuid, op);
+        return op;
+    }
+
+    /**
+     * Runs {@code action} on the main thread with the record's items in memory, reading them on the I/O thread
+     * if needed (queued behind any pending write of the same record). Concurrent requests share one read, and items
+     * read this way are dropped again once the actions have run. If the read fails, {@code onFailure} runs instead.
+     */
+    public void loadItems(EscrowRecord record, Consumer<EscrowRecord> action, Runnable onFailure) {
+        if (record.isLoaded()) {
+            action.accept(record);
+            return;
         }
-        try {
-            yaml.save(file);
-        } catch (IOException e) {
-            TelemetryLogger.error("Saving escrow.yml", e);
+        if (record.pendingLoads != null) {
+            record.pendingLoads.add(new PendingLoad(action, onFailure));
+            return;
         }
+        record.pendingLoads = new ArrayList<>(List.of(new PendingLoad(action, onFailure)));
+        File file = recordFile(record.playerUuid);
+        ItemStack[][] loaded = new ItemStack[2][];
+        persistenceExecutor.submit("escrow load " + record.playerUuid, () -> {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) throw new IOException("Bad escrow file " + file.getName());
+                in.readLong();
+                in.readBoolean();
+                byte[] inventory = new byte[in.readInt()];
+                in.readFully(inventory);
+                byte[] enderChest = new byte[in.readInt()];
+                in.readFully(enderChest);
+                loaded[0] = ItemStack.deserializeItemsFromBytes(inventory);
+                loaded[1] = ItemStack.deserializeItemsFromBytes(enderChest);
+            }
+        }, error -> {
+            List<PendingLoad> loads = record.pendingLoads;
+            record.pendingLoads = null;
+            if (error != null) {
+                // Logged by the executor; the record stays on disk
+                for (PendingLoad load : loads) load.onFailure().run();
+                return;
+            }
+            record.inventory = loaded[0];
+            record.enderChest = loaded[1];
+            try {
+                for (PendingLoad load : loads) load.action().accept(record);
+            } finally {
+                // Items are only needed for the duration of the actions
+                record.inventory = null;
+                record.enderChest = null;
+            }
+        });
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
+        cancelPendingRestore(uuid);
 
         // If fight is active and player is participating
         if (fightManager.getCurrentSessionId() != null && fightManager.isParticipant(uuid)) {
@@ -146,11 +337,12 @@ public class EscrowManager implements Listener {
 
             EscrowRecord record = new EscrowRecord(uuid, expiry, inv, ender, false);
             escrows.put(uuid, record);
+            expiryQueue.add(record);
 
             player.getInventory().clear();
             player.getEnderChest().clear();
             
-            save();
+            persist(record);
             TelemetryLogger.info("Sequestered items for " + player.getName() + " due to combat log.");
         }
     }
@@ -180,78 +372,137 @@ public class EscrowManager implements Listener {
         }
     }
 
+    /**
+     * Fires once the player is placed at the respawn point, so no delay is needed before checking the spot.
+     */
     @EventHandler
-    public void onPlayerRespawn(PlayerRespawnEvent event) {
+    public void onPlayerPostRespawn(PlayerPostRespawnEvent event) {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
         
         EscrowRecord record = escrows.get(uuid);
         if (record != null && (record.released || System.currentTimeMillis() >= record.expiryTime)) {
             record.released = true;
-            // Delay restoration slightly to ensure player has fully respawned
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    if (player.isOnline()) {
-                        tryRestoreItems(player, record);
-                    }
-                }
-            }.runTaskLater(plugin, 10L);
+            tryRestoreItems(player, record);
+        }
+    }
+
+    /**
+     * Re-checks a waiting restore when its player moves. Cheap for everyone else: one empty-map check.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        if (pendingRestores.isEmpty()) return;
+        Player player = event.getPlayer();
+        PendingRestore pending = pendingRestores.get(player.getUniqueId());
+        if (pending == null || pending.recheck != null || pending.readFailed) return;
+
+        if (escrows.get(player.getUniqueId()) != pending.record) {
+            cancelPendingRestore(player.getUniqueId()); // Restored or replaced meanwhile
+        } else if (isSafeForRestore(player)) {
+            restoreNow(player, pending.record);
+        } else if (player.getFallDistance() > SAFE_FALL_DISTANCE && event.getTo().clone().subtract(0, 0.1, 0).getBlock().isSolid()) {
+            // Landing: fall distance resets after this move, and a player standing still sends no further moves
+            pending.recheck = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                pending.recheck = null;
+                recheckPending(player.getUniqueId(), pending);
+            }, 2L);
+        }
+    }
+
+    private void recheckPending(UUID uuid, PendingRestore pending) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (pendingRestores.get(uuid) != pending || player == null) return;
+        if (escrows.get(uuid) != pending.record) {
+            cancelPendingRestore(uuid); // Restored or replaced meanwhile
+        } else if (isSafeForRestore(player)) {
+            restoreNow(player, pending.record);
         }
     }
 
     private void checkExpirations() {
+        // Expiry needs no write: a record past its expiryTime is treated as released when the index is loaded
         long now = System.currentTimeMillis();
-        boolean changed = false;
-        for (EscrowRecord record : escrows.values()) {
-            if (!record.released && now >= record.expiryTime) {
-                record.released = true;
-                changed = true;
-                Player player = Bukkit.getPlayer(record.playerUuid);
-                if (player != null && player.isOnline()) {
-                    if (player.isDead()) {
-                        player.sendMessage(ChatColor.YELLOW + "Your escrowed items will be returned when you respawn.");
-                    } else {
-                        tryRestoreItems(player, record);
-                    }
+        EscrowRecord record;
+        while ((record = expiryQueue.peek()) != null && now >= record.expiryTime) {
+            expiryQueue.poll();
+            // Stale entries: released early, already restored, or replaced by a newer record
+            if (record.released || escrows.get(record.playerUuid) != record) continue;
+            record.released = true;
+            Player player = Bukkit.getPlayer(record.playerUuid);
+            if (player != null && player.isOnline()) {
+                if (player.isDead()) {
+                    player.sendMessage(ChatColor.YELLOW + "Your escrowed items will be returned when you respawn.");
+                } else {
+                    tryRestoreItems(player, record);
                 }
             }
         }
-        if (changed) save();
     }
 
+    /**
+     * Restores now if the player is somewhere safe, otherwise leaves one pending restore that movement re-checks.
+     * Dead players are picked up by onPlayerPostRespawn.
+     */
     private void tryRestoreItems(Player player, EscrowRecord record) {
         if (player.isDead() || player.getHealth() <= 0) {
             player.sendMessage(ChatColor.YELLOW + "Your escrowed items will be returned when you respawn.");
             return;
         }
 
-        org.bukkit.block.Block block = player.getLocation().getBlock();
-        boolean inLiquid = block.getType() == org.bukkit.Material.WATER || block.getType() == org.bukkit.Material.LAVA;
-        boolean falling = player.getFallDistance() > 2.0f;
-
-        if (inLiquid || falling) {
-            player.sendMessage(ChatColor.YELLOW + "Waiting for a safe location to return your escrowed items...");
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    if (player.isOnline()) {
-                        tryRestoreItems(player, record);
-                    }
-                }
-            }.runTaskLater(plugin, 60L); // Retry in 3 seconds
+        if (isSafeForRestore(player)) {
+            restoreNow(player, record);
             return;
         }
+        PendingRestore pending = pendingRestores.get(player.getUniqueId());
+        if (pending != null && pending.record == record) return; // Already waiting
+        addPendingRestore(player.getUniqueId(), record);
+        player.sendMessage(ChatColor.YELLOW + "Waiting for a safe location to return your escrowed items...");
+    }
+
+    private PendingRestore addPendingRestore(UUID uuid, EscrowRecord record) {
+        cancelPendingRestore(uuid);
+        PendingRestore pending = new PendingRestore(record);
+        pending.fallback = Bukkit.getScheduler().runTaskTimer(plugin, () -> recheckPending(uuid, pending),
+                FALLBACK_RECHECK_TICKS, FALLBACK_RECHECK_TICKS);
+        pendingRestores.put(uuid, pending);
+        return pending;
+    }
+
+    private static boolean isSafeForRestore(Player player) {
+        if (player.isDead() || player.getHealth() <= 0) return false;
+        Material block = player.getLocation().getBlock().getType();
+        boolean inLiquid = block == Material.WATER || block == Material.LAVA;
+        return !inLiquid && player.getFallDistance() <= SAFE_FALL_DISTANCE;
+    }
+
+    private void restoreNow(Player player, EscrowRecord record) {
+        UUID uuid = player.getUniqueId();
+        cancelPendingRestore(uuid);
+        loadItems(record, loaded -> {
+            if (player.isOnline()) restoreItems(player, loaded);
+        }, () -> {
+            if (!player.isOnline() || escrows.get(uuid) != record) return;
+            // Keep waiting; the fallback recheck tries the read again
+            PendingRestore pending = pendingRestores.get(uuid);
+            if (pending == null || pending.record != record) pending = addPendingRestore(uuid, record);
+            pending.readFailed = true;
+            player.sendMessage(ChatColor.RED + "Your escrowed items could not be read right now; retrying shortly.");
+        });
+    }
 
-        restoreItems(player, record);
+    private void cancelPendingRestore(UUID uuid) {
+        PendingRestore pending = pendingRestores.remove(uuid);
+        if (pending == null) return;
+        if (pending.recheck != null) pending.recheck.cancel();
+        pending.fallback.cancel();
     }
 
     /**
-     * Restores items to the player and removes the escrow record.
-     * Synchronized to prevent race conditions (e.g., double release).
+     * Restores items to the player and removes the escrow record. Main thread; a record is only restored once.
      */
-    private synchronized void restoreItems(Player player, EscrowRecord record) {
-        if (!escrows.containsKey(player.getUniqueId())) return; // Already restored
+    private void restoreItems(Player player, EscrowRecord record) {
+        if (escrows.get(player.getUniqueId()) != record) return; // Already restored
         
         List<ItemStack> leftovers = new ArrayList<>();
 
@@ -299,7 +550,7 @@ public class EscrowManager implements Listener {
         }
 
         escrows.remove(player.getUniqueId());
-        save();
+        delete(player.getUniqueId());
         player.sendMessage(ChatColor.GREEN + "Your escrowed items have been returned.");
         TelemetryLogger.info("Restored escrowed items for " + player.getName());
     }
@@ -307,21 +558,22 @@ public class EscrowManager implements Listener {
     /**
      * Force release an escrow for a player.
      */
-    public synchronized boolean forceRelease(UUID uuid) {
+    public boolean forceRelease(UUID uuid) {
         EscrowRecord record = escrows.get(uuid);
         if (record == null) return false;
 
         record.released = true;
+        // Persist the release unless the items are handed back first
+        loadItems(record, loaded -> {
+            if (escrows.get(uuid) == loaded) persist(loaded);
+        }, () -> TelemetryLogger.warning("Could not read escrow of " + uuid + "; its release is not saved yet."));
         Player player = Bukkit.getPlayer(uuid);
         if (player != null && player.isOnline()) {
             if (player.isDead()) {
                 player.sendMessage(ChatColor.YELLOW + "Your escrowed items will be returned when you respawn.");
-                save();
             } else {
                 tryRestoreItems(player, record);
             }
-        } else {
-            save(); // Will be restored on next join
         }
         return true;
     }
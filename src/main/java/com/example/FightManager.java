@@ -30,7 +30,6 @@ import java.util.stream.Collectors;
 public class FightManager implements Listener {
     private final JavaPlugin plugin;
     private final ConfigManager configManager;
-    private final CombatCache combatCache;
     private final ScoringEngine scoringEngine;
     private final PersistenceManager persistenceManager;
 
@@ -38,6 +37,7 @@ public class FightManager implements Listener {
     private final Set<UUID> team2Players = new HashSet<>();
 
     private UUID currentSessionId;
+    private SessionScore sessionScore;
     private BossBar bossBar;
     private BukkitRunnable fightTask;
     private long fightEndTime;
@@ -46,10 +46,9 @@ public class FightManager implements Listener {
     private Team team1Scoreboard;
     private Team team2Scoreboard;
 
-    public FightManager(JavaPlugin plugin, ConfigManager configManager, CombatCache combatCache, ScoringEngine scoringEngine, PersistenceManager persistenceManager) {
+    public FightManager(JavaPlugin plugin, ConfigManager configManager, ScoringEngine scoringEngine, PersistenceManager persistenceManager) {
         this.plugin = plugin;
         this.configManager = configManager;
-        this.combatCache = combatCache;
         this.scoringEngine = scoringEngine;
         this.persistenceManager = persistenceManager;
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
@@ -117,6 +116,7 @@ public class FightManager implements Listener {
             return;
         }
         currentSessionId = UUID.randomUUID();
+        sessionScore = new SessionScore(currentSessionId);
         long durationSeconds = configManager.getDefaultFightDurationSeconds();
         fightEndTime = System.currentTimeMillis() + (durationSeconds * 1000L);
 
@@ -134,7 +134,7 @@ public class FightManager implements Listener {
                     cancel();
                     return;
                 }
-                var scores = scoringEngine.calculateSessionScores(combatCache.getRecordsMap(), currentSessionId, team1Players, team2Players);
+                var scores = getCurrentScores();
                 String team1Names = getPlayerNamesShort(team1Players);
                 String team2Names = getPlayerNamesShort(team2Players);
                 String timeStr = String.format("%02d:%02d", remainingMs / 60000, (remainingMs % 60000) / 1000);
@@ -219,7 +219,7 @@ public class FightManager implements Listener {
         }
         if (currentSessionId == null) return;
 
-        var finalScores = scoringEngine.calculateSessionScores(combatCache.getRecordsMap(), currentSessionId, team1Players, team2Players);
+        var finalScores = getCurrentScores();
         Set<UUID> winners = new HashSet<>();
         Set<UUID> losers = new HashSet<>();
         String winnerMsg;
@@ -313,19 +313,30 @@ public class FightManager implements Listener {
 
     private ItemStack findRandomHighValueItem(Player player) {
         List<ItemStack> highValue = Arrays.stream(player.getInventory().getContents())
-                .filter(item -> item != null && configManager.isHighValueMaterial(item.getType().name()))
+                .filter(item -> item != null && configManager.isHighValueMaterial(item.getType()))
                 .toList();
         return highValue.isEmpty() ? null : highValue.get((int) (Math.random() * highValue.size())).clone();
     }
 
     private void clearSession() {
         currentSessionId = null;
+        sessionScore = null;
         fightEndTime = 0;
         clearTeams();
     }
 
     public ScorePair getCurrentScores() {
-        if (currentSessionId == null) return new ScorePair(0, 0);
-        return scoringEngine.calculateSessionScores(combatCache.getRecordsMap(), currentSessionId, team1Players, team2Players);
+        if (sessionScore == null) return new ScorePair(0, 0);
+        return sessionScore.toScorePair();
+    }
+
+    /**
+     * Scores a hit recorded by HitListener/KillListener against the live session, using team membership at hit time.
+     */
+    public void recordHit(UUID sessionId, UUID attackerId, UUID victimId, org.bukkit.Material weapon, double damage,
+                          boolean fatal, boolean victimBlocking, int victimArmorTier) {
+        if (sessionScore == null || !sessionScore.getSessionId().equals(sessionId)) return;
+        scoringEngine.scoreHit(sessionScore, attackerId, victimId, weapon, damage, fatal, victimBlocking, victimArmorTier,
+                team1Players, team2Players);
     }
 }
\ No newline at end of file
@@ -11,9 +11,7 @@ import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -24,14 +22,18 @@ public class HitListener implements Listener {
     private final CombatCache combatCache;
     private final FightManager fightManager;
     private final ConfigManager configManager;
+    private final ArmorTierCache armorTierCache;
+    private final AutoFightDetector autoFightDetector;
 
-    // Map of VictimUUID -> Map of AttackerUUID -> List of timestamps
-    private final Map<UUID, Map<UUID, List<Long>>> recentHits = new HashMap<>();
+    // Reused for every hit (events run on the main thread); the cache copies the coordinates out
+    private final Location scratchLocation = new Location(null, 0, 0, 0);
 
-    public HitListener(CombatCache combatCache, FightManager fightManager, ConfigManager configManager) {
+    public HitListener(CombatCache combatCache, FightManager fightManager, ConfigManager configManager, ArmorTierCache armorTierCache, AutoFightDetector autoFightDetector) {
         this.combatCache = combatCache;
         this.fightManager = fightManager;
         this.configManager = configManager;
+        this.armorTierCache = armorTierCache;
+        this.autoFightDetector = autoFightDetector;
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
@@ -44,7 +46,7 @@ public class HitListener implements Listener {
 
         double damage = event.getFinalDamage();
 
-        Location hitLocation = victim.getLocation().clone();
+        Location hitLocation = victim.getLocation(scratchLocation);
 
         // Approx body part using attacker's eye Y relative to victim's feet
         double relY = (attacker.getEyeLocation().getY() - victim.getLocation().getY()) / victim.getHeight();
@@ -53,45 +55,28 @@ public class HitListener implements Listener {
         // Detect shield block: If final damage 0 and victim blocking (shields nullify melee damage)
         boolean wasVictimBlocking = (damage <= 0.0 && victim.isBlocking());
 
-        int victimArmorTier = ScoringEngine.calculateAverageArmorTier(victim);
+        int victimArmorTier = armorTierCache.getArmorTier(victim);
 
         UUID fightSessionId = fightManager.getCurrentSessionId();
 
-        CombatRecord record = new CombatRecord(
+        combatCache.addHit(
                 attacker.getUniqueId(), attacker.getName(),
                 victim.getUniqueId(), victim.getName(),
                 weapon, hitBodyPart, hitLocation, damage, false, wasVictimBlocking, victimArmorTier, fightSessionId,
                 System.currentTimeMillis()
         );
-
-        combatCache.addRecord(record);
+        fightManager.recordHit(fightSessionId, attacker.getUniqueId(), victim.getUniqueId(), weapon, damage, false,
+                wasVictimBlocking, victimArmorTier);
         checkAutoFight(attacker, victim);
     }
 
     private void checkAutoFight(Player attacker, Player victim) {
         if (!configManager.isFightModeEnabled()) return;
 
-        int requiredHits = configManager.getAutoFightHitCount();
-        if (requiredHits <= 0) return; // Disabled
-
-        long timeWindowMs = configManager.getAutoFightTimeWindowSeconds() * 1000L;
-        long now = System.currentTimeMillis();
-
         UUID attackerId = attacker.getUniqueId();
         UUID victimId = victim.getUniqueId();
 
-        recentHits.putIfAbsent(victimId, new HashMap<>());
-        Map<UUID, List<Long>> attackers = recentHits.get(victimId);
-        
-        attackers.putIfAbsent(attackerId, new ArrayList<>());
-        List<Long> hits = attackers.get(attackerId);
-        
-        hits.add(now);
-        hits.removeIf(t -> now - t > timeWindowMs);
-
-        if (hits.size() >= requiredHits) {
-            hits.clear(); // Reset
-            
+        if (autoFightDetector.recordHit(attackerId, victimId, System.currentTimeMillis())) {
             if (fightManager.getCurrentSessionId() == null) {
                 fightManager.clearTeams();
                 fightManager.addToTeam1(attacker);
@@ -2,26 +2,16 @@ package com.example;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import net.minecraft.core.HolderLookup;
-import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.ListTag;
-import net.minecraft.nbt.NbtAccounter;
-import net.minecraft.nbt.NbtIo;
 import org.bukkit.*;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
-import org.bukkit.craftbukkit.CraftServer;
-import org.bukkit.craftbukkit.inventory.CraftItemStack;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -29,12 +19,18 @@ import java.util.UUID;
  * Uses pure Mojang mappings (correct for Paper 1.21.11 dev bundle).
  */
 public class InventoryCommand implements CommandExecutor {
+    private static final int MAX_FIND_RESULTS = 50;
+
     private final PlayerLocs plugin;
     private final NameUuidManager nameUuidManager;
+    private final OfflineInventoryCache inventoryCache;
+    private final InventoryItemIndex itemIndex;
 
-    public InventoryCommand(PlayerLocs plugin, NameUuidManager nameUuidManager) {
+    public InventoryCommand(PlayerLocs plugin, NameUuidManager nameUuidManager, OfflineInventoryCache inventoryCache, InventoryItemIndex itemIndex) {
         this.plugin = plugin;
         this.nameUuidManager = nameUuidManager;
+        this.inventoryCache = inventoryCache;
+        this.itemIndex = itemIndex;
     }
 
     @Override
@@ -44,11 +40,15 @@ public class InventoryCommand implements CommandExecutor {
             return true;
         }
         if (args.length < 1) {
-            sender.sendMessage(ChatColor.YELLOW + "Usage: /inventory <player/uuid/all> [world=world]");
+            sender.sendMessage(ChatColor.YELLOW + "Usage: /inventory <player/uuid/all> [world=world] | /inventory find <material> [minAmount]");
             return true;
         }
 
         String targetStr = args[0];
+        if (targetStr.equalsIgnoreCase("find")) {
+            findItem(sender, args);
+            return true;
+        }
         String worldName = args.length > 1 ? args[1] : "world";
         World world = Bukkit.getWorld(worldName);
         if (world == null) {
@@ -74,6 +74,44 @@ public class InventoryCommand implements CommandExecutor {
         return true;
     }
 
+    /**
+     * /inventory find: who holds a material, online players live and offline players from the item index.
+     */
+    private void findItem(CommandSender sender, String[] args) {
+        Material material = args.length > 1 ? Material.matchMaterial(args[1]) : null;
+        if (material == null || material.isAir()) {
+            sender.sendMessage(ChatColor.RED + "Usage: /inventory find <material> [minAmount]");
+            return;
+        }
+        int minAmount = 1;
+        if (args.length > 2) {
+            try {
+                minAmount = Math.max(1, Integer.parseInt(args[2]));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(ChatColor.RED + "Invalid amount: " + args[2]);
+                return;
+            }
+        }
+
+        List<InventoryItemIndex.Hit> hits = itemIndex.find(material, minAmount);
+        sender.sendMessage(ChatColor.DARK_GRAY + "--------------------------------------------------");
+        sender.sendMessage(ChatColor.GOLD + "=== " + hits.size() + " players holding " + minAmount + "+ " + material.name() + " ===");
+        for (int i = 0; i < Math.min(MAX_FIND_RESULTS, hits.size()); i++) {
+            InventoryItemIndex.Hit hit = hits.get(i);
+            String name = Objects.requireNonNullElse(nameUuidManager.getNameFromUuid(hit.uuid()), hit.uuid().toString());
+            sender.sendMessage("§b" + name + (hit.online() ? " §a(online)" : "")
+                    + " §8[§e" + hit.total() + "x§8] §6[Inv] §e" + hit.inventory() + " §5[Ender] §e" + hit.enderChest());
+        }
+        if (hits.size() > MAX_FIND_RESULTS) {
+            sender.sendMessage(ChatColor.GRAY + "... and " + (hits.size() - MAX_FIND_RESULTS) + " more");
+        }
+        if (itemIndex.isRefreshing()) {
+            sender.sendMessage(ChatColor.GRAY + "Offline item index is refreshing (" + itemIndex.indexedPlayers() + " players indexed so far).");
+        }
+        TelemetryLogger.info("Inventory find " + material.name() + " >= " + minAmount + ": " + hits.size() + " holders");
+        sender.sendMessage(ChatColor.DARK_GRAY + "--------------------------------------------------");
+    }
+
     private void displayInventory(CommandSender sender, Player player) {
         sender.sendMessage(ChatColor.DARK_GRAY + "--------------------------------------------------");
         sender.sendMessage(ChatColor.GOLD + "=== " + player.getName() + "'s Inventory ===");
@@ -100,16 +138,13 @@ public class InventoryCommand implements CommandExecutor {
     }
 
     private void loadOfflineInventory(CommandSender sender, UUID uuid, String worldName) {
-        File playerDataFile = new File(Bukkit.getWorldContainer(), "world/playerdata/" + uuid + ".dat");
-        if (!playerDataFile.exists()) {
-            sender.sendMessage(ChatColor.RED + "No data file for " + uuid);
-            return;
-        }
-
         try {
-            CompoundTag nbt = NbtIo.readCompressed(playerDataFile.toPath(), NbtAccounter.unlimitedHeap());
+            OfflineInventoryCache.OfflineInventory inventory = inventoryCache.get(uuid);
+            if (inventory == null) {
+                sender.sendMessage(ChatColor.RED + "No data file for " + uuid);
+                return;
+            }
             String pName = nameUuidManager.getNameFromUuid(uuid);
-            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
             sender.sendMessage(ChatColor.DARK_GRAY + "--------------------------------------------------");
             sender.sendMessage(ChatColor.GOLD + "=== Offline " + pName + "'s Inventory ===");
 
@@ -118,55 +153,16 @@ public class InventoryCommand implements CommandExecutor {
             json.addProperty("name", pName);
             JsonArray invArray = new JsonArray();
 
-            // ---------- helper to convert vanilla item NBT -> Bukkit ItemStack ----------
-            HolderLookup.Provider registryAccess = ((CraftServer) Bukkit.getServer()).getServer().registryAccess();
-            java.util.function.Function<CompoundTag, org.bukkit.inventory.ItemStack> nbtToBukkit =
-                    itemNbt -> {
-                        try {
-                            com.mojang.serialization.DataResult<net.minecraft.world.item.ItemStack> result = net.minecraft.world.item.ItemStack.OPTIONAL_CODEC.parse(
-                                registryAccess.createSerializationContext(net.minecraft.nbt.NbtOps.INSTANCE), 
-                                itemNbt
-                            );
-                            
-                            net.minecraft.world.item.ItemStack nmsItem = result.resultOrPartial(err -> {
-                                TelemetryLogger.warning("Partial/Error parsing item NBT: " + err + " | NBT: " + itemNbt.toString());
-                            }).orElse(null);
-                            
-                            if (nmsItem != null && !nmsItem.isEmpty()) {
-                                return CraftItemStack.asBukkitCopy(nmsItem);
-                            }
-                        } catch (Exception e) {
-                            TelemetryLogger.error("Exception parsing item NBT", e);
-                        }
-                        return null;
-                    };
-
             // ---------- Main inventory ----------
-            ListTag invList = nbt.getListOrEmpty("Inventory");
-            for (int i = 0; i < invList.size(); i++) {
-                CompoundTag itemNbt = invList.getCompoundOrEmpty(i);
-                if (itemNbt.isEmpty()) continue;
-
-                org.bukkit.inventory.ItemStack item = nbtToBukkit.apply(itemNbt);
-
-                if (item != null && !item.getType().isAir()) {
-                    invArray.add(itemToJson(item));
-                    sendPrettyItem(sender, item, false);
-                }
+            for (ItemStack item : inventory.inventory()) {
+                invArray.add(itemToJson(item));
+                sendPrettyItem(sender, item, false);
             }
 
             // ---------- Ender chest ----------
-            ListTag enderList = nbt.getListOrEmpty("EnderItems");
-            for (int i = 0; i < enderList.size(); i++) {
-                CompoundTag itemNbt = enderList.getCompoundOrEmpty(i);
-                if (itemNbt.isEmpty()) continue;
-
-                org.bukkit.inventory.ItemStack item = nbtToBukkit.apply(itemNbt);
-
-                if (item != null && !item.getType().isAir()) {
-                    invArray.add(itemToJson(item, true));
-                    sendPrettyItem(sender, item, true);
-                }
+            for (ItemStack item : inventory.enderChest()) {
+                invArray.add(itemToJson(item, true));
+                sendPrettyItem(sender, item, true);
             }
 
             json.add("inventory", invArray);
@@ -178,9 +174,6 @@ public class InventoryCommand implements CommandExecutor {
         }
     }
 
-
-
-
     private void sendPrettyItem(CommandSender sender, ItemStack item, boolean isEnder) {
         String prefix = isEnder ? "§5[Ender] " : "§6[Inv] ";
         String name = item.hasItemMeta() && item.getItemMeta().hasDisplayName()
@@ -0,0 +1,213 @@
+package com.example;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Inverted index Material -> holder -> amount (inventory, ender chest) for /inventory find.
+ * Offline holdings are read from world/playerdata: a background pass stats every .dat file and re-reads only those whose
+ * last-modified time or size changed, and a quitting player's live inventory is indexed immediately. Only the item id and
+ * count of each top-level stack are read (no item codec), which is all a search needs. Online players are searched live.
+ * The index itself is main thread only; file reads happen on a Bukkit async task.
+ */
+public class InventoryItemIndex implements Listener {
+    private static final Set<String> INVENTORY_TAGS = Set.of("Inventory", "EnderItems");
+    public static final long REFRESH_INTERVAL_TICKS = 5 * 60 * 20L;
+    private static final int INVENTORY = 0, ENDER_CHEST = 1;
+
+    private final JavaPlugin plugin;
+    private final Map<UUID, Holdings> players = new HashMap<>();
+    private final Map<Material, Map<UUID, int[]>> holders = new EnumMap<>(Material.class);
+    private boolean refreshing;
+
+    /**
+     * One player's amount of the searched material.
+     */
+    public record Hit(UUID uuid, boolean online, int inventory, int enderChest) {
+        public int total() {
+            return inventory + enderChest;
+        }
+    }
+
+    /**
+     * Indexed amounts of one player and the file stamp they were read from (lastModified -1 = taken from a quit).
+     */
+    private record Holdings(long lastModified, long size, Map<Material, int[]> amounts) {}
+
+    private record Update(UUID uuid, Holdings holdings) {}
+
+    public InventoryItemIndex(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        UUID uuid = player.getUniqueId();
+        Map<Material, int[]> amounts = new EnumMap<>(Material.class);
+        count(amounts, player.getInventory().getContents(), INVENTORY);
+        count(amounts, player.getEnderChest().getContents(), ENDER_CHEST);
+        Holdings holdings = new Holdings(-1L, -1L, amounts);
+        put(uuid, holdings);
+
+        // The player file is saved after the quit event; stamp the entry with it so the next refresh skips this file
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            File file = OfflineLocationScanner.playerDataFile(uuid);
+            if (players.get(uuid) == holdings && file.exists()) {
+                players.put(uuid, new Holdings(file.lastModified(), file.length(), amounts));
+            }
+        });
+    }
+
+    /**
+     * Players holding at least {@code minAmount} of the material in total, largest holders first.
+     */
+    public List<Hit> find(Material material, int minAmount) {
+        List<Hit> hits = new ArrayList<>();
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            int inventory = amountOf(p.getInventory().getContents(), material);
+            int enderChest = amountOf(p.getEnderChest().getContents(), material);
+            if (inventory + enderChest > 0 && inventory + enderChest >= minAmount) {
+                hits.add(new Hit(p.getUniqueId(), true, inventory, enderChest));
+            }
+        }
+        Map<UUID, int[]> offline = holders.getOrDefault(material, Map.of());
+        for (Map.Entry<UUID, int[]> holder : offline.entrySet()) {
+            int[] amount = holder.getValue();
+            if (amount[INVENTORY] + amount[ENDER_CHEST] < minAmount) continue;
+            if (Bukkit.getPlayer(holder.getKey()) != null) continue; // Counted live above
+            hits.add(new Hit(holder.getKey(), false, amount[INVENTORY], amount[ENDER_CHEST]));
+        }
+        hits.sort(Comparator.comparingInt(Hit::total).reversed());
+        return hits;
+    }
+
+    public int indexedPlayers() {
+        return players.size();
+    }
+
+    public boolean isRefreshing() {
+        return refreshing;
+    }
+
+    private void put(UUID uuid, Holdings holdings) {
+        remove(uuid);
+        players.put(uuid, holdings);
+        for (Map.Entry<Material, int[]> amount : holdings.amounts().entrySet()) {
+            holders.computeIfAbsent(amount.getKey(), m -> new HashMap<>()).put(uuid, amount.getValue());
+        }
+    }
+
+    private void remove(UUID uuid) {
+        Holdings previous = players.remove(uuid);
+        if (previous == null) return;
+        for (Material material : previous.amounts().keySet()) {
+            Map<UUID, int[]> materialHolders = holders.get(material);
+            if (materialHolders == null) continue;
+            materialHolders.remove(uuid);
+            if (materialHolders.isEmpty()) holders.remove(material);
+        }
+    }
+
+    /**
+     * Re-reads player files that changed since they were indexed, off the main thread, then applies the results here.
+     * Run every REFRESH_INTERVAL_TICKS. Entries that changed in the meantime (a quit) are newer and are kept.
+     */
+    public void refresh() {
+        if (refreshing) return;
+        refreshing = true;
+        Map<UUID, Holdings> taken = new HashMap<>(players);
+        Map<UUID, long[]> stamps = new HashMap<>(players.size() * 2);
+        for (Map.Entry<UUID, Holdings> e : players.entrySet()) {
+            stamps.put(e.getKey(), new long[]{e.getValue().lastModified(), e.getValue().size()});
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<Update> updates = new ArrayList<>();
+            Set<UUID> deleted = new HashSet<>(stamps.keySet());
+            try {
+                File[] files = OfflineLocationScanner.playerDataDir().listFiles((dir, name) -> name.endsWith(".dat"));
+                if (files == null) {
+                    deleted.clear(); // Folder unreadable; keep what is indexed
+                    return;
+                }
+                for (File f : files) {
+                    UUID uuid;
+                    try {
+                        uuid = UUID.fromString(f.getName().substring(0, f.getName().length() - 4));
+                    } catch (IllegalArgumentException notPlayerData) {
+                        continue;
+                    }
+                    deleted.remove(uuid);
+                    long lastModified = f.lastModified(), size = f.length();
+                    long[] stamp = stamps.get(uuid);
+                    if (stamp != null && stamp[0] == lastModified && stamp[1] == size) continue;
+                    try {
+                        updates.add(new Update(uuid, new Holdings(lastModified, size, readAmounts(f))));
+                    } catch (IOException | RuntimeException e) {
+                        TelemetryLogger.error("Indexing items from " + f.getName(), e);
+                    }
+                }
+            } finally {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    for (Update update : updates) {
+                        if (players.get(update.uuid()) == taken.get(update.uuid())) put(update.uuid(), update.holdings());
+                    }
+                    for (UUID uuid : deleted) {
+                        if (players.get(uuid) == taken.get(uuid)) remove(uuid);
+                    }
+                    refreshing = false;
+                    if (!updates.isEmpty() || !deleted.isEmpty()) {
+                        plugin.getLogger().info("Item index: " + updates.size() + " player files re-read, "
+                                + deleted.size() + " removed, " + players.size() + " indexed.");
+                    }
+                });
+            }
+        });
+    }
+
+    private static Map<Material, int[]> readAmounts(File file) throws IOException {
+        CompoundTag nbt = SelectiveNbtReader.readCompressed(file.toPath(), INVENTORY_TAGS);
+        Map<Material, int[]> amounts = new EnumMap<>(Material.class);
+        countNbt(amounts, nbt.getListOrEmpty("Inventory"), INVENTORY);
+        countNbt(amounts, nbt.getListOrEmpty("EnderItems"), ENDER_CHEST);
+        return amounts;
+    }
+
+    private static void countNbt(Map<Material, int[]> amounts, ListTag items, int container) {
+        for (int i = 0; i < items.size(); i++) {
+            CompoundTag itemNbt = items.getCompoundOrEmpty(i);
+            Material material = Material.matchMaterial(itemNbt.getStringOr("id", ""));
+            if (material == null || material.isAir()) continue;
+            amounts.computeIfAbsent(material, m -> new int[2])[container] += itemNbt.getIntOr("count", 1);
+        }
+    }
+
+    private static int amountOf(ItemStack[] items, Material material) {
+        int amount = 0;
+        for (ItemStack item : items) {
+            if (item != null && item.getType() == material) amount += item.getAmount();
+        }
+        return amount;
+    }
+
+    private static void count(Map<Material, int[]> amounts, ItemStack[] items, int container) {
+        for (ItemStack item : items) {
+            if (item == null || item.getType().isAir()) continue;
+            amounts.computeIfAbsent(item.getType(), m -> new int[2])[container] += item.getAmount();
+        }
+    }
+}
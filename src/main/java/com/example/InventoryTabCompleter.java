@@ -2,6 +2,7 @@
 package com.example;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
@@ -10,7 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Tab for /inventory: Players (online and offline), all, worlds.
+ * Tab for /inventory: Players (online and offline), all, find <material>, worlds.
  */
 public class InventoryTabCompleter implements TabCompleter {
     private final NameUuidManager nameUuidManager;
@@ -27,9 +28,17 @@ public class InventoryTabCompleter implements TabCompleter {
             if ("all".startsWith(partial)) {
                 completions.add("all");
             }
-            for (String name : nameUuidManager.getAllKnownNames()) {
-                if (name.toLowerCase().startsWith(partial)) {
-                    completions.add(name);
+            if ("find".startsWith(partial)) {
+                completions.add("find");
+            }
+            completions.addAll(nameUuidManager.completeNames(partial, NameUuidManager.MAX_COMPLETIONS));
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("find")) {
+            String partial = args[1].toLowerCase();
+            for (Material material : Material.values()) {
+                if (completions.size() >= NameUuidManager.MAX_COMPLETIONS) break;
+                if (material.isItem() && !material.isAir() && !material.isLegacy()
+                        && material.name().toLowerCase().startsWith(partial)) {
+                    completions.add(material.name().toLowerCase());
                 }
             }
         } else if (args.length == 2) {
@@ -17,11 +17,13 @@ public class KillListener implements Listener {
     private final CombatCache combatCache;
     private final FightManager fightManager;
     private final ConfigManager configManager;
+    private final ArmorTierCache armorTierCache;
 
-    public KillListener(CombatCache combatCache, FightManager fightManager, ConfigManager configManager) {
+    public KillListener(CombatCache combatCache, FightManager fightManager, ConfigManager configManager, ArmorTierCache armorTierCache) {
         this.combatCache = combatCache;
         this.fightManager = fightManager;
         this.configManager = configManager;
+        this.armorTierCache = armorTierCache;
     }
 
     @EventHandler
@@ -55,17 +57,17 @@ public class KillListener implements Listener {
         String hitBodyPart = "torso";
         double damage = 999.0;
         boolean wasVictimBlocking = false;
-        int victimArmorTier = ScoringEngine.calculateAverageArmorTier(victim);
+        int victimArmorTier = armorTierCache.getArmorTier(victim);
 
         UUID fightSessionId = fightManager.getCurrentSessionId();
 
-        CombatRecord killRecord = new CombatRecord(
+        combatCache.addHit(
                 killer.getUniqueId(), killer.getName(),
                 victim.getUniqueId(), victim.getName(),
-                weapon, hitBodyPart, victim.getLocation().clone(), damage, true, wasVictimBlocking, victimArmorTier, fightSessionId,
+                weapon, hitBodyPart, victim.getLocation(), damage, true, wasVictimBlocking, victimArmorTier, fightSessionId,
                 System.currentTimeMillis()
         );
-
-        combatCache.addRecord(killRecord);
+        fightManager.recordHit(fightSessionId, killer.getUniqueId(), victim.getUniqueId(), weapon, damage, true,
+                wasVictimBlocking, victimArmorTier);
     }
 }
\ No newline at end of file
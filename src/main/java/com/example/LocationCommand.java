@@ -2,31 +2,35 @@ package com.example;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.NbtIo;
-import net.minecraft.nbt.ListTag;
-import net.minecraft.nbt.NbtAccounter;
-
-import java.io.File;
 import java.io.IOException;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
  * /loc command – works for online AND offline players using Mojang mappings.
  */
 public class LocationCommand implements CommandExecutor {
+    private static final double MAX_NEAR_RADIUS = 60_000_000; // Spans the whole world border
+    private static final String NEAR_USAGE = "Usage: /loc near <x> <z> <radius> [dimension]";
+
     private final PlayerLocs plugin;
     private final NameUuidManager nameUuidManager;
+    private final OfflineLocationScanner offlineScanner;
+    private final OfflineLocationIndex locationIndex;
 
-    public LocationCommand(PlayerLocs plugin, NameUuidManager nameUuidManager) {
+    public LocationCommand(PlayerLocs plugin, NameUuidManager nameUuidManager, OfflineLocationScanner offlineScanner, OfflineLocationIndex locationIndex) {
         this.plugin = plugin;
         this.nameUuidManager = nameUuidManager;
+        this.offlineScanner = offlineScanner;
+        this.locationIndex = locationIndex;
     }
 
     @Override
@@ -38,12 +42,20 @@ public class LocationCommand implements CommandExecutor {
             }
 
             if (args.length < 1) {
-                sender.sendMessage(ChatColor.YELLOW + "Usage: /loc <player/uuid|All-OnlineOnly|All>");
+                sender.sendMessage(ChatColor.YELLOW + "Usage: /loc <player/uuid|All-OnlineOnly|All|near <x> <z> <radius> [dimension]|regions [dimension] [count]>");
                 return true;
             }
 
             String targetStr = args[0];
 
+            if (targetStr.equalsIgnoreCase("near")) {
+                handleNear(sender, args);
+                return true;
+            } else if (targetStr.equalsIgnoreCase("regions")) {
+                handleRegions(sender, args);
+                return true;
+            }
+
             if (targetStr.equalsIgnoreCase("All-OnlineOnly")) {
                 for (Player p : Bukkit.getOnlinePlayers()) {
                     String locMsg = String.format("%s's Location: %.2f, %.2f, %.2f in %s", 
@@ -57,11 +69,12 @@ public class LocationCommand implements CommandExecutor {
                         p.getName(), p.getLocation().getX(), p.getLocation().getY(), p.getLocation().getZ(), p.getLocation().getWorld().getName());
                     sender.sendMessage(ChatColor.GOLD + locMsg);
                 }
+                // Offline players are read from disk in the background and streamed back in batches
+                List<UUID> offline = new ArrayList<>();
                 for (UUID uuid : nameUuidManager.getAllUuids()) {
-                    if (Bukkit.getPlayer(uuid) == null) {
-                        loadOfflineLocation(sender, uuid);
-                    }
+                    if (Bukkit.getPlayer(uuid) == null) offline.add(uuid);
                 }
+                offlineScanner.startScan(sender, offline);
                 return true;
             }
 
@@ -91,34 +104,107 @@ public class LocationCommand implements CommandExecutor {
         return true;
     }
 
-    private void loadOfflineLocation(CommandSender sender, UUID uuid) {
-        File playerDataFile = new File(Bukkit.getWorldContainer(), "world/playerdata/" + uuid + ".dat");
-        if (!playerDataFile.exists()) {
-            String msg = "No data file for " + uuid;
-            sender.sendMessage(ChatColor.RED + msg);
-            TelemetryLogger.warning("API/RCON Location Result: " + msg);
+    /**
+     * /loc near: offline players from the location index plus online players within the radius.
+     */
+    private void handleNear(CommandSender sender, String[] args) {
+        if (args.length < 4) {
+            sender.sendMessage(ChatColor.RED + NEAR_USAGE);
+            return;
+        }
+        double x, z, radius;
+        try {
+            x = Double.parseDouble(args[1]);
+            z = Double.parseDouble(args[2]);
+            radius = Double.parseDouble(args[3]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(ChatColor.RED + NEAR_USAGE);
+            return;
+        }
+        if (!Double.isFinite(x) || !Double.isFinite(z) || !(radius >= 0 && radius <= MAX_NEAR_RADIUS)) {
+            sender.sendMessage(ChatColor.RED + "Coordinates must be finite and the radius between 0 and " + (long) MAX_NEAR_RADIUS + ".");
             return;
         }
+        String dimension = args.length > 4 ? dimensionKey(args[4]) : defaultDimension(sender);
+
+        int shown = 0;
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            Location loc = p.getLocation();
+            double dx = loc.getX() - x, dz = loc.getZ() - z;
+            if (p.getWorld().getKey().toString().equals(dimension) && dx * dx + dz * dz <= radius * radius) {
+                sender.sendMessage(ChatColor.GOLD + String.format("%s's Location: %.2f, %.2f, %.2f (%.0f blocks)",
+                        p.getName(), loc.getX(), loc.getY(), loc.getZ(), Math.sqrt(dx * dx + dz * dz)));
+                shown++;
+            }
+        }
+        for (OfflineLocationIndex.Entry e : locationIndex.near(dimension, x, z, radius)) {
+            if (Bukkit.getPlayer(e.uuid()) != null) continue;  // Shown above with the live position
+            double distance = Math.sqrt((e.x() - x) * (e.x() - x) + (e.z() - z) * (e.z() - z));
+            sender.sendMessage(ChatColor.GOLD + String.format("Offline %s Location: %.2f, %.2f, %.2f (%.0f blocks)",
+                    Objects.requireNonNullElse(nameUuidManager.getNameFromUuid(e.uuid()), e.uuid().toString()), e.x(), e.y(), e.z(), distance));
+            shown++;
+        }
+        sender.sendMessage(ChatColor.YELLOW + String.valueOf(shown) + " players within " + (long) radius + " blocks of "
+                + (long) x + ", " + (long) z + " in " + dimension.replace("minecraft:", ""));
+    }
+
+    /**
+     * /loc regions: offline player counts per region file, most populated first.
+     */
+    private void handleRegions(CommandSender sender, String[] args) {
+        String dimension = args.length > 1 ? dimensionKey(args[1]) : defaultDimension(sender);
+        int limit = 10;
+        if (args.length > 2) {
+            try {
+                limit = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(ChatColor.RED + "Usage: /loc regions [dimension] [count]");
+                return;
+            }
+        }
+        List<OfflineLocationIndex.RegionCount> counts = locationIndex.regionCounts(dimension);
+        sender.sendMessage(ChatColor.YELLOW + "Offline players by region in " + dimension.replace("minecraft:", "")
+                + " (" + counts.size() + " regions):");
+        for (OfflineLocationIndex.RegionCount region : counts.subList(0, Math.min(limit, counts.size()))) {
+            sender.sendMessage(ChatColor.GOLD + String.format("  r.%d.%d (x %d..%d, z %d..%d): %d",
+                    region.regionX(), region.regionZ(),
+                    region.regionX() * 512, region.regionX() * 512 + 511,
+                    region.regionZ() * 512, region.regionZ() * 512 + 511,
+                    region.count()));
+        }
+    }
+
+    private static String defaultDimension(CommandSender sender) {
+        return sender instanceof Player p ? p.getWorld().getKey().toString() : "minecraft:overworld";
+    }
 
+    private static String dimensionKey(String arg) {
+        String lower = arg.toLowerCase();
+        return lower.contains(":") ? lower : "minecraft:" + lower;
+    }
+
+    private void loadOfflineLocation(CommandSender sender, UUID uuid) {
+        OfflineLocationIndex.Entry indexed = locationIndex.get(uuid);
+        if (indexed != null) {
+            String locMsg = offlineScanner.format(new OfflineLocationScanner.OfflineLocation(
+                    uuid, indexed.x(), indexed.y(), indexed.z(), indexed.dimension()));
+            sender.sendMessage(ChatColor.GOLD + locMsg);
+            TelemetryLogger.info("API/RCON Location Result: " + locMsg);
+            return;
+        }
         try {
-            CompoundTag nbt = NbtIo.readCompressed(playerDataFile.toPath(), NbtAccounter.unlimitedHeap());
-
-            ListTag posList = nbt.getListOrEmpty("Pos");
-            if (!posList.isEmpty() && posList.size() >= 3) {
-                double x_value = posList.getDoubleOr(0, 0.0);
-                double y_value = posList.getDoubleOr(1, 0.0);
-                double z_value = posList.getDoubleOr(2, 0.0);
-                
-                String dimension = nbt.getStringOr("Dimension", "minecraft:overworld");
-                String name = nameUuidManager.getNameFromUuid(uuid);
-                String displayName = name != null ? name : uuid.toString();
-
-                String locMsg = String.format("Offline %s Location: %.2f, %.2f, %.2f in %s", 
-                    displayName, x_value, y_value, z_value, dimension.replace("minecraft:", ""));
-                
-                sender.sendMessage(ChatColor.GOLD + locMsg);
-                TelemetryLogger.info("API/RCON Location Result: " + locMsg);
+            OfflineLocationScanner.OfflineLocation loc = OfflineLocationScanner.readLocation(uuid);
+            if (loc == null) {
+                if (!OfflineLocationScanner.playerDataFile(uuid).exists()) {
+                    String msg = "No data file for " + uuid;
+                    sender.sendMessage(ChatColor.RED + msg);
+                    TelemetryLogger.warning("API/RCON Location Result: " + msg);
+                }
+                return;
             }
+            String locMsg = offlineScanner.format(loc);
+            sender.sendMessage(ChatColor.GOLD + locMsg);
+            TelemetryLogger.info("API/RCON Location Result: " + locMsg);
         } catch (IOException e) {
             TelemetryLogger.error("Reading NBT for offline player " + uuid, e);
             sender.sendMessage(ChatColor.RED + "Error reading NBT data.");
@@ -127,4 +213,4 @@ public class LocationCommand implements CommandExecutor {
             sender.sendMessage(ChatColor.RED + "An unexpected error occurred.");
         }
     }
-}
\ No newline at end of file
+}
@@ -9,7 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Tab for /loc: Players (online and offline).
+ * Tab for /loc: Players (online and offline), near, regions.
  */
 public class LocationTabCompleter implements TabCompleter {
     private final NameUuidManager nameUuidManager;
@@ -25,11 +25,9 @@ public class LocationTabCompleter implements TabCompleter {
             String partial = args[0].toLowerCase();
             if ("all-onlineonly".toLowerCase().startsWith(partial)) completions.add("All-OnlineOnly");
             if ("all".toLowerCase().startsWith(partial)) completions.add("All");
-            for (String name : nameUuidManager.getAllKnownNames()) {
-                if (name.toLowerCase().startsWith(partial)) {
-                    completions.add(name);
-                }
-            }
+            if ("near".startsWith(partial)) completions.add("near");
+            if ("regions".startsWith(partial)) completions.add("regions");
+            completions.addAll(nameUuidManager.completeNames(partial, NameUuidManager.MAX_COMPLETIONS));
         }
         return completions;
     }
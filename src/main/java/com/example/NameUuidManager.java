@@ -6,67 +6,307 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.logging.Level;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Persists UUID <-> Name map with a fallback to the server cache.
+ * Current names are also kept in a sorted, concurrent index (lowercase -> display name) so prefix completion
+ * is a range scan that stops after the requested count, and can run on Paper's async tab-complete thread.
+ *
+ * Storage: a binary snapshot (names.bin) plus an append-only change journal (names.journal). Changed UUIDs are
+ * tracked in a dirty set; each save appends only those to the journal, and the journal is folded into a new
+ * snapshot once it grows past a fraction of the map. Both files carry a generation number so a journal left
+ * over from before a compaction is never replayed onto the newer snapshot. A legacy names.yml is imported once.
  */
 public class NameUuidManager {
+    /** Cap on player-name suggestions per completion request. */
+    public static final int MAX_COMPLETIONS = 100;
+
+    private static final int SNAPSHOT_MAGIC = 0x42584e53; // "BXNS"
+    private static final int JOURNAL_MAGIC = 0x42584e4a; // "BXNJ"
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 8;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final int MIN_COMPACT_ENTRIES = 1024;
+
     private final JavaPlugin plugin;
-    private final File file;
-    private final Map<UUID, String> uuidToName = new HashMap<>();
-    private final Map<String, UUID> nameToUuid = new HashMap<>();
+    private final File snapshotFile;
+    private final File journalFile;
+    private final File legacyFile;
+    private final Map<UUID, String> uuidToName = new ConcurrentHashMap<>();
+    private final Map<String, UUID> nameToUuid = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, String> nameIndex = new ConcurrentSkipListMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    // Owned by whichever thread runs writeChanges (the single I/O thread), and by load() before that
+    private long generation;
+    private long journalEntries;
+    private long journalBytes; // Journal length covering complete entries; 0 = no journal for this generation yet
 
     public NameUuidManager(JavaPlugin plugin) {
         this.plugin = plugin;
-        this.file = new File(plugin.getDataFolder(), "names.yml");
+        this.snapshotFile = new File(plugin.getDataFolder(), "names.bin");
+        this.journalFile = new File(plugin.getDataFolder(), "names.journal");
+        this.legacyFile = new File(plugin.getDataFolder(), "names.yml");
         load();
     }
 
     private void load() {
-        if (file.exists()) {
-            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-            for (String key : yaml.getKeys(false)) {
-                try {
-                    UUID uuid = UUID.fromString(key);
-                    String name = yaml.getString(key);
-                    if (name != null) {
-                        uuidToName.put(uuid, name);
-                        nameToUuid.put(name.toLowerCase(), uuid);
-                    }
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("Invalid UUID found in names.yml: " + key);
+        if (!snapshotFile.exists() && legacyFile.exists()) {
+            migrateLegacyFile();
+            return;
+        }
+        try {
+            if (snapshotFile.exists()) readSnapshot();
+            if (!replayJournal()) resetJournal();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to load player names: " + e.getMessage());
+        }
+        plugin.getLogger().info("Loaded " + uuidToName.size() + " player names (" + journalEntries + " journaled changes).");
+    }
+
+    private void readSnapshot() throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(snapshotFile.toPath()));
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != SNAPSHOT_MAGIC || buf.getShort() != FORMAT_VERSION) {
+            throw new IOException("Not a name snapshot: " + snapshotFile.getName());
+        }
+        generation = buf.getLong();
+        int count = buf.getInt();
+        for (int i = 0; i < count; i++) {
+            putInMemory(new UUID(buf.getLong(), buf.getLong()), getUtf(buf));
+        }
+    }
+
+    /**
+     * Replays the journal onto the loaded snapshot.
+     * @return False if there is no journal for the current generation and a fresh one must be started.
+     */
+    private boolean replayJournal() throws IOException {
+        if (!journalFile.exists()) return false;
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(journalFile.toPath()));
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != JOURNAL_MAGIC || buf.getShort() != FORMAT_VERSION) {
+            plugin.getLogger().warning("Ignoring unreadable " + journalFile.getName());
+            return false;
+        }
+        if (buf.getLong() != generation) return false; // Written before the current snapshot; already folded in
+        journalBytes = buf.position();
+        try {
+            while (buf.hasRemaining()) {
+                int start = buf.position();
+                byte op = buf.get();
+                UUID uuid = new UUID(buf.getLong(), buf.getLong());
+                if (op == OP_PUT) {
+                    putInMemory(uuid, getUtf(buf));
+                } else if (op == OP_REMOVE) {
+                    removeInMemory(uuid);
+                } else {
+                    plugin.getLogger().warning("Corrupt entry in " + journalFile.getName() + " at offset " + start);
+                    break;
                 }
+                journalEntries++;
+                journalBytes = buf.position();
             }
+        } catch (BufferUnderflowException e) {
+            // Torn tail from an interrupted append; everything before it is intact, the rest is cut off on the next append
+            plugin.getLogger().warning("Truncated entry at the end of " + journalFile.getName());
         }
+        return true;
     }
 
-    public void save() {
-        YamlConfiguration yaml = new YamlConfiguration();
-        for (var entry : uuidToName.entrySet()) {
-            yaml.set(entry.getKey().toString(), entry.getValue());
+    /**
+     * One-time import of names.yml into the binary snapshot; the YAML file is renamed to names.yml.migrated.
+     */
+    private void migrateLegacyFile() {
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(legacyFile);
+        for (String key : yaml.getKeys(false)) {
+            try {
+                UUID uuid = UUID.fromString(key);
+                String name = yaml.getString(key);
+                if (name != null) putInMemory(uuid, name);
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid UUID found in names.yml: " + key);
+            }
+        }
+        try {
+            compact();
+            Files.move(legacyFile.toPath(), new File(legacyFile.getParentFile(), legacyFile.getName() + ".migrated").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            plugin.getLogger().info("Migrated " + uuidToName.size() + " player names from names.yml.");
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to migrate names.yml: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes the names changed since the last call: UUID -> current name, or null if the UUID lost its name.
+     * Call on the main thread; pass the result to {@link #writeChanges(Map)}.
+     */
+    public Map<UUID, String> takeChanges() {
+        Map<UUID, String> changes = new HashMap<>();
+        for (Iterator<UUID> it = dirty.iterator(); it.hasNext(); ) {
+            UUID uuid = it.next();
+            it.remove();
+            changes.put(uuid, uuidToName.get(uuid));
         }
+        return changes;
+    }
+
+    /**
+     * Appends changes to the journal, compacting into a new snapshot when the journal has grown large.
+     * Safe to call off the main thread; calls must not overlap. On failure the changes are marked dirty again.
+     */
+    public void writeChanges(Map<UUID, String> changes) throws IOException {
+        if (changes.isEmpty()) return;
         try {
-            yaml.save(file);
+            appendJournal(changes);
+            if (journalEntries > Math.max(MIN_COMPACT_ENTRIES, uuidToName.size() / 4)) {
+                compact();
+            }
         } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "Could not save names.yml!", e);
+            dirty.addAll(changes.keySet());
+            plugin.getLogger().severe("Could not save player names: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private void appendJournal(Map<UUID, String> changes) throws IOException {
+        if (journalFile.exists() && journalFile.length() != journalBytes) {
+            // Leftovers of a failed append, a torn tail or a corrupt entry; later entries must not follow them
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(journalBytes);
+            }
         }
+        int written;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)))) {
+            if (journalBytes == 0) writeHeader(out, JOURNAL_MAGIC, generation);
+            for (var entry : changes.entrySet()) {
+                UUID uuid = entry.getKey();
+                out.writeByte(entry.getValue() != null ? OP_PUT : OP_REMOVE);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                if (entry.getValue() != null) putUtf(out, entry.getValue());
+            }
+            written = out.size();
+        }
+        journalBytes += written;
+        journalEntries += changes.size();
+    }
+
+    /**
+     * Writes the whole map as the next snapshot generation and starts an empty journal for it.
+     * Changes made while the snapshot is written are either in it or still dirty, and replaying them is idempotent.
+     */
+    private void compact() throws IOException {
+        List<Map.Entry<UUID, String>> entries = new ArrayList<>(uuidToName.entrySet());
+        long nextGeneration = generation + 1;
+        File tmp = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            writeHeader(out, SNAPSHOT_MAGIC, nextGeneration);
+            out.writeInt(entries.size());
+            for (var entry : entries) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                putUtf(out, entry.getValue());
+            }
+        }
+        Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = nextGeneration;
+        resetJournal();
     }
 
-    public void addOrUpdate(UUID uuid, String name) {
+    private void resetJournal() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(journalFile))) {
+            writeHeader(out, JOURNAL_MAGIC, generation);
+        }
+        journalBytes = HEADER_BYTES;
+        journalEntries = 0;
+    }
+
+    private static void writeHeader(DataOutputStream out, int magic, long generation) throws IOException {
+        out.writeInt(magic);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(generation);
+    }
+
+    private static void putUtf(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getUtf(ByteBuffer buf) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized void addOrUpdate(UUID uuid, String name) {
+        if (name.equals(uuidToName.get(uuid))) return; // Unchanged; nothing to persist
         String lowerName = name.toLowerCase();
         UUID existing = nameToUuid.get(lowerName);
         if (existing != null && !existing.equals(uuid)) {
-            nameToUuid.remove(lowerName);
-            uuidToName.remove(existing);
+            removeInMemory(existing);
+            dirty.add(existing);
         }
-        uuidToName.put(uuid, name);
+        putInMemory(uuid, name);
+        dirty.add(uuid);
+    }
+
+    private void putInMemory(UUID uuid, String name) {
+        String lowerName = name.toLowerCase();
+        String previous = uuidToName.put(uuid, name);
         nameToUuid.put(lowerName, uuid);
+        if (previous != null && !previous.equalsIgnoreCase(name)) {
+            unindexName(previous.toLowerCase(), uuid);  // Renamed: only complete the current name
+        }
+        nameIndex.put(lowerName, name);
+    }
+
+    private void removeInMemory(UUID uuid) {
+        String name = uuidToName.remove(uuid);
+        if (name == null) return;
+        String lowerName = name.toLowerCase();
+        unindexName(lowerName, uuid);
+        nameToUuid.remove(lowerName, uuid);
+    }
+
+    /**
+     * Drops a former name of {@code uuid} from completion, unless another player has since taken it.
+     */
+    private void unindexName(String lowerName, UUID uuid) {
+        UUID owner = nameToUuid.get(lowerName);
+        if (owner == null || owner.equals(uuid)) nameIndex.remove(lowerName);
+    }
+
+    /**
+     * Up to {@code limit} known names starting with the prefix (case-insensitive), in alphabetical order.
+     * Thread-safe.
+     */
+    public List<String> completeNames(String prefix, int limit) {
+        String lowerPrefix = prefix.toLowerCase();
+        List<String> matches = new ArrayList<>();
+        for (var entry : nameIndex.tailMap(lowerPrefix).entrySet()) {
+            if (matches.size() >= limit || !entry.getKey().startsWith(lowerPrefix)) break;
+            matches.add(entry.getValue());
+        }
+        return matches;
     }
 
     public java.util.Set<UUID> getAllUuids() {
@@ -107,12 +347,4 @@ public class NameUuidManager {
 
         return "UnknownPlayer";
     }
-
-    /**
-     * Get all known player names for tab completion.
-     * @return A set of all known player names.
-     */
-    public java.util.Set<String> getAllKnownNames() {
-        return new java.util.HashSet<>(uuidToName.values());
-    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.example;
+
+import com.sun.management.ThreadMXBean;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Standalone benchmark: time and allocated bytes per player file for NbtIo.readCompressed (full decode)
+ * versus SelectiveNbtReader for the location tags and the inventory tags.
+ * Run against a real playerdata folder with the Paper server on the classpath:
+ * java -cp <paper-server + build/classes> com.example.NbtReadBenchmark [world/playerdata] [maxFiles]
+ */
+public class NbtReadBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final Set<String> LOCATION_TAGS = Set.of("Pos", "Dimension");
+    private static final Set<String> INVENTORY_TAGS = Set.of("Inventory", "EnderItems");
+
+    private interface Reader {
+        CompoundTag read(Path path) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File dir = new File(args.length > 0 ? args[0] : "world/playerdata");
+        int maxFiles = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        File[] found = dir.listFiles((d, name) -> name.endsWith(".dat"));
+        if (found == null || found.length == 0) {
+            System.err.println("No .dat files in " + dir.getAbsolutePath());
+            return;
+        }
+        List<Path> files = Arrays.stream(found).limit(maxFiles).map(File::toPath).toList();
+        long totalBytes = files.stream().mapToLong(p -> p.toFile().length()).sum();
+
+        System.out.printf("Files: %d (avg %.1f KiB compressed)%n", files.size(), totalBytes / 1024.0 / files.size());
+        run("NbtIo full", files, path -> NbtIo.readCompressed(path, NbtAccounter.unlimitedHeap()));
+        run("Selective location", files, path -> SelectiveNbtReader.readCompressed(path, LOCATION_TAGS));
+        run("Selective inventory", files, path -> SelectiveNbtReader.readCompressed(path, INVENTORY_TAGS));
+    }
+
+    private static void run(String label, List<Path> files, Reader reader) throws IOException {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long bestNs = Long.MAX_VALUE, bestAlloc = Long.MAX_VALUE;
+        int tags = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            tags = 0;
+            long allocStart = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (Path path : files) tags += reader.read(path).size();
+            long elapsed = System.nanoTime() - start;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - allocStart;
+            if (round >= WARMUP_ROUNDS) {
+                bestNs = Math.min(bestNs, elapsed);
+                bestAlloc = Math.min(bestAlloc, allocated);
+            }
+        }
+        System.out.printf("%-20s %9.1f us/file  %9.1f KiB allocated/file  (%d tags read)%n",
+                label, bestNs / 1000.0 / files.size(), bestAlloc / 1024.0 / files.size(), tags);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
+import org.bukkit.Bukkit;
+import org.bukkit.craftbukkit.CraftServer;
+import org.bukkit.craftbukkit.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Decoded offline inventories, so repeat /inventory lookups of the same offline player skip NBT work.
+ * Entries are keyed by UUID and validated against the .dat file's last-modified time and size; a changed file is
+ * decoded again. The cache is LRU and bounded by an estimate of the heap held by the decoded stacks.
+ * The registry serialization context for the item codec is built once. Thread-safe.
+ */
+public class OfflineInventoryCache {
+    private static final Set<String> INVENTORY_TAGS = Set.of("Inventory", "EnderItems");
+    private static final long MAX_ESTIMATED_BYTES = 32L * 1024 * 1024;
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+    private static final long STACK_ESTIMATE_BYTES = 1024; // Stack + meta + components, generous for enchanted/named items
+
+    private final LinkedHashMap<UUID, Cached> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long estimatedBytes;
+    private volatile RegistryOps<Tag> registryOps;
+
+    /**
+     * Non-air stacks of an offline player's inventory and ender chest. Shared between lookups; do not modify the stacks.
+     */
+    public record OfflineInventory(UUID uuid, List<ItemStack> inventory, List<ItemStack> enderChest) {}
+
+    private record Cached(long lastModified, long size, OfflineInventory inventory, long estimatedBytes) {}
+
+    /**
+     * Returns the player's saved inventory, or null if there is no data file.
+     */
+    public OfflineInventory get(UUID uuid) throws IOException {
+        File file = OfflineLocationScanner.playerDataFile(uuid);
+        long lastModified = file.lastModified();
+        long size = file.length();
+        if (lastModified == 0L) return null; // No such file
+
+        synchronized (this) {
+            Cached cached = cache.get(uuid);
+            if (cached != null && cached.lastModified() == lastModified && cached.size() == size) {
+                return cached.inventory();
+            }
+        }
+
+        CompoundTag nbt = SelectiveNbtReader.readCompressed(file.toPath(), INVENTORY_TAGS);
+        OfflineInventory inventory = new OfflineInventory(uuid,
+                decodeItems(nbt.getListOrEmpty("Inventory")), decodeItems(nbt.getListOrEmpty("EnderItems")));
+        long bytes = ENTRY_OVERHEAD_BYTES
+                + STACK_ESTIMATE_BYTES * (inventory.inventory().size() + inventory.enderChest().size());
+
+        synchronized (this) {
+            Cached previous = cache.put(uuid, new Cached(lastModified, size, inventory, bytes));
+            if (previous != null) estimatedBytes -= previous.estimatedBytes();
+            estimatedBytes += bytes;
+            Iterator<Cached> eldest = cache.values().iterator();
+            while (estimatedBytes > MAX_ESTIMATED_BYTES && eldest.hasNext()) {
+                Cached evicted = eldest.next();
+                if (evicted.inventory() == inventory) break; // Always keep the entry just loaded
+                estimatedBytes -= evicted.estimatedBytes();
+                eldest.remove();
+            }
+        }
+        return inventory;
+    }
+
+    public synchronized void invalidate(UUID uuid) {
+        Cached removed = cache.remove(uuid);
+        if (removed != null) estimatedBytes -= removed.estimatedBytes();
+    }
+
+    private List<ItemStack> decodeItems(ListTag list) {
+        List<ItemStack> items = new ArrayList<>(list.size());
+        RegistryOps<Tag> ops = registryOps();
+        for (int i = 0; i < list.size(); i++) {
+            CompoundTag itemNbt = list.getCompoundOrEmpty(i);
+            if (itemNbt.isEmpty()) continue;
+            try {
+                net.minecraft.world.item.ItemStack nmsItem = net.minecraft.world.item.ItemStack.OPTIONAL_CODEC.parse(ops, itemNbt)
+                        .resultOrPartial(err -> TelemetryLogger.warning("Partial/Error parsing item NBT: " + err + " | NBT: " + itemNbt))
+                        .orElse(null);
+                if (nmsItem != null && !nmsItem.isEmpty()) {
+                    ItemStack item = CraftItemStack.asBukkitCopy(nmsItem);
+                    if (!item.getType().isAir()) items.add(item);
+                }
+            } catch (Exception e) {
+                TelemetryLogger.error("Exception parsing item NBT", e);
+            }
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    private RegistryOps<Tag> registryOps() {
+        RegistryOps<Tag> ops = registryOps;
+        if (ops == null) {
+            ops = ((CraftServer) Bukkit.getServer()).getServer().registryAccess().createSerializationContext(NbtOps.INSTANCE);
+            registryOps = ops;
+        }
+        return ops;
+    }
+}
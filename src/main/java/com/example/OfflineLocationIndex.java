@@ -0,0 +1,257 @@
+package com.example;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Last known position of every player who has left, captured on quit and bootstrapped once from world/playerdata.
+ * In memory each dimension is a grid of 512x512 cells, the same footprint as a region file, so radius queries only
+ * visit the overlapping cells and per-region counts only walk the populated cells. Persisted as locations.bin (dimension table,
+ * then uuid + dimension id + x/y/z per player), written from a snapshot on the I/O thread. Main thread only.
+ */
+public class OfflineLocationIndex implements Listener {
+    private static final int MAGIC = 0x42584c43; // "BXLC"
+    private static final short FORMAT_VERSION = 1;
+    private static final int CELL_SHIFT = 9; // 512 blocks
+
+    private final JavaPlugin plugin;
+    private final File file;
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final Map<String, Map<Long, Set<Entry>>> grids = new HashMap<>(); // Dimension -> cell -> entries
+    private boolean dirty;
+
+    /**
+     * Saved position of one player; dimension is a namespaced key such as minecraft:overworld.
+     */
+    public record Entry(UUID uuid, String dimension, double x, double y, double z) {}
+
+    /**
+     * Player count of one region (512x512 blocks, region file r.X.Z).
+     */
+    public record RegionCount(int regionX, int regionZ, int count) {}
+
+    public OfflineLocationIndex(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "locations.bin");
+        if (file.exists()) {
+            load();
+        } else {
+            bootstrap();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        Location loc = player.getLocation();
+        put(new Entry(player.getUniqueId(), player.getWorld().getKey().toString(), loc.getX(), loc.getY(), loc.getZ()));
+    }
+
+    public Entry get(UUID uuid) {
+        return entries.get(uuid);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Indexed players within {@code radius} blocks (horizontal distance) of x/z, nearest first.
+     */
+    public List<Entry> near(String dimension, double x, double z, double radius) {
+        Map<Long, Set<Entry>> grid = grids.get(dimension);
+        if (grid == null) return List.of();
+        int minCx = cell(x - radius), maxCx = cell(x + radius);
+        int minCz = cell(z - radius), maxCz = cell(z + radius);
+        double radiusSq = radius * radius;
+        List<Entry> result = new ArrayList<>();
+        long rangeCells = ((long) maxCx - minCx + 1) * ((long) maxCz - minCz + 1);
+        if (rangeCells > grid.size()) {
+            // Wide radius: fewer populated cells than cells in range, so walk those instead
+            for (var cell : grid.entrySet()) {
+                long key = cell.getKey();
+                int cx = (int) (key >> 32), cz = (int) key;
+                if (cx >= minCx && cx <= maxCx && cz >= minCz && cz <= maxCz) collectWithin(cell.getValue(), x, z, radiusSq, result);
+            }
+        } else {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cz = minCz; cz <= maxCz; cz++) {
+                    Set<Entry> cell = grid.get(cellKey(cx, cz));
+                    if (cell != null) collectWithin(cell, x, z, radiusSq, result);
+                }
+            }
+        }
+        result.sort(Comparator.comparingDouble(e -> (e.x() - x) * (e.x() - x) + (e.z() - z) * (e.z() - z)));
+        return result;
+    }
+
+    private static void collectWithin(Set<Entry> cell, double x, double z, double radiusSq, List<Entry> out) {
+        for (Entry e : cell) {
+            double dx = e.x() - x, dz = e.z() - z;
+            if (dx * dx + dz * dz <= radiusSq) out.add(e);
+        }
+    }
+
+    /**
+     * Regions of a dimension that hold indexed players who are offline now, most populated first. Entries of players
+     * who have rejoined stay indexed (their last quit position) but are not counted.
+     */
+    public List<RegionCount> regionCounts(String dimension) {
+        Map<Long, Set<Entry>> grid = grids.get(dimension);
+        if (grid == null) return List.of();
+        List<RegionCount> counts = new ArrayList<>(grid.size());
+        for (var cell : grid.entrySet()) {
+            int offline = 0;
+            for (Entry e : cell.getValue()) {
+                if (Bukkit.getPlayer(e.uuid()) == null) offline++;
+            }
+            long key = cell.getKey();
+            if (offline > 0) counts.add(new RegionCount((int) (key >> 32), (int) key, offline));
+        }
+        counts.sort(Comparator.comparingInt(RegionCount::count).reversed());
+        return counts;
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.uuid(), entry);
+        if (previous != null) removeFromGrid(previous);
+        grids.computeIfAbsent(entry.dimension(), d -> new HashMap<>())
+                .computeIfAbsent(cellKey(cell(entry.x()), cell(entry.z())), k -> new HashSet<>())
+                .add(entry);
+        dirty = true;
+    }
+
+    private void removeFromGrid(Entry entry) {
+        Map<Long, Set<Entry>> grid = grids.get(entry.dimension());
+        if (grid == null) return;
+        long key = cellKey(cell(entry.x()), cell(entry.z()));
+        Set<Entry> cell = grid.get(key);
+        if (cell == null) return;
+        cell.remove(entry);
+        if (cell.isEmpty()) grid.remove(key);
+    }
+
+    private static int cell(double coord) {
+        return (int) Math.floor(coord) >> CELL_SHIFT;
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Copy of the entries if anything changed since the last snapshot, else null. Main thread.
+     */
+    public List<Entry> snapshotIfDirty() {
+        if (!dirty) return null;
+        dirty = false;
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Includes the index in the next snapshot again, e.g. after its write failed. Main thread.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Writes a snapshot atomically. Safe to call off the main thread.
+     */
+    public void write(List<Entry> snapshot) throws IOException {
+        Map<String, Integer> dimensionIds = new LinkedHashMap<>();
+        for (Entry e : snapshot) dimensionIds.putIfAbsent(e.dimension(), dimensionIds.size());
+
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeShort(dimensionIds.size());
+            for (String dimension : dimensionIds.keySet()) {
+                byte[] bytes = dimension.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(snapshot.size());
+            for (Entry e : snapshot) {
+                out.writeLong(e.uuid().getMostSignificantBits());
+                out.writeLong(e.uuid().getLeastSignificantBits());
+                out.writeShort(dimensionIds.get(e.dimension()));
+                out.writeDouble(e.x());
+                out.writeDouble(e.y());
+                out.writeDouble(e.z());
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC || buf.getShort() != FORMAT_VERSION) {
+                plugin.getLogger().warning("Unreadable " + file.getName() + "; rebuilding from playerdata.");
+                bootstrap();
+                return;
+            }
+            String[] dimensions = new String[Short.toUnsignedInt(buf.getShort())];
+            for (int i = 0; i < dimensions.length; i++) {
+                byte[] bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+                buf.get(bytes);
+                dimensions[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int count = buf.getInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(buf.getLong(), buf.getLong());
+                String dimension = dimensions[Short.toUnsignedInt(buf.getShort())];
+                put(new Entry(uuid, dimension, buf.getDouble(), buf.getDouble(), buf.getDouble()));
+            }
+            dirty = false;
+            plugin.getLogger().info("Loaded " + entries.size() + " offline player locations.");
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().severe("Failed to load " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * One-time import from world/playerdata, read off the main thread. Positions captured by quits in the
+     * meantime are newer and win.
+     */
+    private void bootstrap() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            File[] files = OfflineLocationScanner.playerDataDir().listFiles((dir, name) -> name.endsWith(".dat"));
+            if (files == null) return;
+            List<Entry> found = new ArrayList<>();
+            for (File f : files) {
+                try {
+                    UUID uuid = UUID.fromString(f.getName().substring(0, f.getName().length() - 4));
+                    OfflineLocationScanner.OfflineLocation loc = OfflineLocationScanner.readLocation(uuid);
+                    if (loc != null) found.add(new Entry(uuid, loc.dimension(), loc.x(), loc.y(), loc.z()));
+                } catch (IllegalArgumentException ignored) {
+                    // Not a player data file
+                } catch (IOException | RuntimeException e) {
+                    TelemetryLogger.error("Indexing offline location from " + f.getName(), e);
+                }
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                for (Entry e : found) {
+                    if (!entries.containsKey(e.uuid())) put(e);
+                }
+                dirty = true;
+                plugin.getLogger().info("Indexed " + found.size() + " offline player locations from playerdata.");
+            });
+        });
+    }
+}
@@ -0,0 +1,178 @@
+package com.example;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads offline player positions from world/playerdata and runs /loc All as a background job:
+ * a small fixed pool of I/O workers pulls UUIDs from a shared queue, and a main-thread task sends
+ * the results to the sender in batches. A job stops when its sender disconnects or starts another scan.
+ */
+public class OfflineLocationScanner {
+    private static final int WORKERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int BATCH_SIZE = 50;
+    private static final long FLUSH_INTERVAL_TICKS = 10L;
+    private static final Set<String> LOCATION_TAGS = Set.of("Pos", "Dimension");
+
+    private final JavaPlugin plugin;
+    private final NameUuidManager nameUuidManager;
+    private final ExecutorService pool;
+    private final Map<CommandSender, ScanJob> activeJobs = new ConcurrentHashMap<>();
+
+    /**
+     * Last saved position of an offline player.
+     */
+    public record OfflineLocation(UUID uuid, double x, double y, double z, String dimension) {}
+
+    public OfflineLocationScanner(JavaPlugin plugin, NameUuidManager nameUuidManager) {
+        this.plugin = plugin;
+        this.nameUuidManager = nameUuidManager;
+        AtomicInteger threadId = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "PlayerLocs-Scan-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Reads a player's saved position. Returns null if there is no data file or it has no position.
+     * Safe to call from any thread.
+     */
+    public static OfflineLocation readLocation(UUID uuid) throws IOException {
+        File playerDataFile = playerDataFile(uuid);
+        if (!playerDataFile.exists()) return null;
+        CompoundTag nbt = SelectiveNbtReader.readCompressed(playerDataFile.toPath(), LOCATION_TAGS);
+        ListTag posList = nbt.getListOrEmpty("Pos");
+        if (posList.size() < 3) return null;
+        return new OfflineLocation(uuid,
+                posList.getDoubleOr(0, 0.0), posList.getDoubleOr(1, 0.0), posList.getDoubleOr(2, 0.0),
+                nbt.getStringOr("Dimension", "minecraft:overworld"));
+    }
+
+    public static File playerDataFile(UUID uuid) {
+        return new File(playerDataDir(), uuid + ".dat");
+    }
+
+    public static File playerDataDir() {
+        return new File(Bukkit.getWorldContainer(), "world/playerdata");
+    }
+
+    /**
+     * Formats a result line the same way for single lookups and scans. Main thread (name lookup).
+     */
+    public String format(OfflineLocation loc) {
+        String name = nameUuidManager.getNameFromUuid(loc.uuid());
+        String displayName = name != null ? name : loc.uuid().toString();
+        return String.format("Offline %s Location: %.2f, %.2f, %.2f in %s",
+                displayName, loc.x(), loc.y(), loc.z(), loc.dimension().replace("minecraft:", ""));
+    }
+
+    /**
+     * Starts scanning the given offline players for the sender, replacing any scan it already has running.
+     */
+    public void startScan(CommandSender sender, List<UUID> uuids) {
+        ScanJob previous = activeJobs.remove(sender);
+        if (previous != null) previous.cancelled.set(true);
+
+        ScanJob job = new ScanJob(sender, uuids);
+        activeJobs.put(sender, job);
+        sender.sendMessage(ChatColor.YELLOW + "Scanning " + uuids.size() + " offline players in the background...");
+        for (int i = 0; i < Math.min(WORKERS, uuids.size()); i++) {
+            pool.execute(job::work);
+        }
+        job.runTaskTimer(plugin, 1L, FLUSH_INTERVAL_TICKS);
+    }
+
+    public void shutdown() {
+        for (ScanJob job : activeJobs.values()) job.cancelled.set(true);
+        pool.shutdownNow();
+    }
+
+    /**
+     * One /loc All run. Workers fill {@code results}; the timer drains it on the main thread.
+     */
+    private final class ScanJob extends BukkitRunnable {
+        private final CommandSender sender;
+        private final Queue<UUID> pending;
+        private final Queue<OfflineLocation> results = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicInteger remaining;
+        private final AtomicInteger missing = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private int sent;
+
+        ScanJob(CommandSender sender, List<UUID> uuids) {
+            this.sender = sender;
+            this.pending = new ConcurrentLinkedQueue<>(uuids);
+            this.remaining = new AtomicInteger(uuids.size());
+        }
+
+        /** Worker loop: runs on the scan pool until the queue is empty or the job is cancelled. */
+        void work() {
+            UUID uuid;
+            while (!cancelled.get() && (uuid = pending.poll()) != null) {
+                try {
+                    OfflineLocation loc = readLocation(uuid);
+                    if (loc != null) results.add(loc);
+                    else missing.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    TelemetryLogger.error("Reading NBT for offline player " + uuid, e);
+                } finally {
+                    remaining.decrementAndGet();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (sender instanceof Player player && !player.isOnline()) {
+                finish();
+                return;
+            }
+            if (cancelled.get()) {
+                cancel();
+                return;
+            }
+            OfflineLocation loc;
+            for (int i = 0; i < BATCH_SIZE && (loc = results.poll()) != null; i++) {
+                String locMsg = format(loc);
+                sender.sendMessage(ChatColor.GOLD + locMsg);
+                TelemetryLogger.info("API/RCON Location Result: " + locMsg);
+                sent++;
+            }
+            if (remaining.get() == 0 && results.isEmpty()) {
+                sender.sendMessage(ChatColor.YELLOW + "Offline scan done: " + sent + " locations, "
+                        + missing.get() + " without data, " + failed.get() + " unreadable.");
+                finish();
+            }
+        }
+
+        private void finish() {
+            cancelled.set(true);
+            activeJobs.remove(sender, this);
+            cancel();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Small manifest of the day partitions in the combat store: record count, time range and byte size per day.
+ * Lets retention decide which partitions to unlink, keep or rewrite without opening them.
+ */
+public class PartitionManifest {
+    private final File file;
+    private final Logger logger;
+    private final TreeMap<Integer, Partition> partitions = new TreeMap<>();
+
+    /**
+     * Stats for one day partition (day = days since epoch, UTC).
+     */
+    public static final class Partition {
+        public final int day;
+        public long records;
+        public long minTimestamp = Long.MAX_VALUE;
+        public long maxTimestamp = Long.MIN_VALUE;
+        public long bytes;
+
+        public Partition(int day) {
+            this.day = day;
+        }
+
+        public void include(long timestamp) {
+            records++;
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+        }
+    }
+
+    public PartitionManifest(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    public void load() {
+        partitions.clear();
+        if (!file.exists()) return;
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection section = yaml.getConfigurationSection("partitions");
+        if (section == null) return;
+        for (String key : section.getKeys(false)) {
+            try {
+                int day = Integer.parseInt(key);
+                Partition p = new Partition(day);
+                p.records = section.getLong(key + ".records");
+                p.minTimestamp = section.getLong(key + ".minTimestamp");
+                p.maxTimestamp = section.getLong(key + ".maxTimestamp");
+                p.bytes = section.getLong(key + ".bytes");
+                partitions.put(day, p);
+            } catch (NumberFormatException e) {
+                logger.warning("Invalid partition key in " + file.getName() + ": " + key);
+            }
+        }
+    }
+
+    public void save() throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        for (Partition p : partitions.values()) {
+            String key = "partitions." + p.day;
+            yaml.set(key + ".records", p.records);
+            yaml.set(key + ".minTimestamp", p.minTimestamp);
+            yaml.set(key + ".maxTimestamp", p.maxTimestamp);
+            yaml.set(key + ".bytes", p.bytes);
+        }
+        yaml.save(file);
+    }
+
+    public Partition get(int day) {
+        return partitions.get(day);
+    }
+
+    public Partition getOrCreate(int day) {
+        return partitions.computeIfAbsent(day, Partition::new);
+    }
+
+    public void put(Partition partition) {
+        partitions.put(partition.day, partition);
+    }
+
+    public void remove(int day) {
+        partitions.remove(day);
+    }
+
+    /**
+     * All partitions, oldest first.
+     */
+    public Collection<Partition> all() {
+        return new ArrayList<>(partitions.values());
+    }
+}
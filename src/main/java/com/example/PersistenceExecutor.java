@@ -0,0 +1,138 @@
+package com.example;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Dedicated I/O thread for persistence writes.
+ * Purpose: Keep encoding, compression and file writes off the main server thread.
+ * Pattern: Single-writer executor with a bounded queue; callers hand over immutable snapshots.
+ * Writes never run concurrently or out of submission order: a full queue blocks the caller until a slot frees.
+ */
+public class PersistenceExecutor {
+    private static final long FULL_QUEUE_WARN_MS = 5_000L;
+
+    private final JavaPlugin plugin;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * A unit of disk work that may fail with any exception.
+     */
+    @FunctionalInterface
+    public interface IoTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * @param plugin Owning plugin, used to hop completion callbacks back to the main thread.
+     * @param maxQueued Writes allowed to wait behind the running one before callers block.
+     */
+    public PersistenceExecutor(JavaPlugin plugin, int maxQueued) {
+        this.plugin = plugin;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)),
+                r -> {
+                    Thread t = new Thread(r, "PlayerLocs-IO");
+                    t.setDaemon(false);
+                    return t;
+                },
+                PersistenceExecutor::waitForSlot);
+    }
+
+    /**
+     * Rejection handler for a full queue: blocks until the I/O thread frees a slot, so the write keeps its place
+     * in order instead of running beside the one in progress.
+     */
+    private static void waitForSlot(Runnable job, ThreadPoolExecutor executor) {
+        long waitStart = System.currentTimeMillis();
+        try {
+            while (!executor.isShutdown()) {
+                if (executor.getQueue().offer(job, FULL_QUEUE_WARN_MS, TimeUnit.MILLISECONDS)) {
+                    long waited = System.currentTimeMillis() - waitStart;
+                    if (waited > 50L) TelemetryLogger.warning("Persistence queue full; caller waited " + waited + "ms for a slot.");
+                    return;
+                }
+                TelemetryLogger.warning("Persistence queue still full after " + (System.currentTimeMillis() - waitStart) + "ms; waiting.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new RejectedExecutionException("Persistence executor stopped");
+    }
+
+    /**
+     * Queues a write behind every earlier one. If the queue is full, blocks until there is room.
+     * After {@link #drain}, waits for the remaining writes and then runs this one on the calling thread.
+     * @param label Short description used in logs.
+     * @param task The disk work.
+     * @param onComplete Optional callback run on the main thread with the failure, or null on success.
+     * @return Future completed once the write has finished.
+     */
+    public CompletableFuture<Void> submit(String label, IoTask task, Consumer<Throwable> onComplete) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Runnable job = () -> {
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                TelemetryLogger.error("Async persistence (" + label + ")", t);
+                future.completeExceptionally(t);
+            }
+        };
+
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            TelemetryLogger.warning("Persistence executor stopped; running '" + label + "' synchronously.");
+            awaitIdle();
+            job.run();
+        }
+
+        if (onComplete != null) {
+            future.whenComplete((ignored, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (plugin.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> onComplete.accept(cause));
+                } else {
+                    onComplete.accept(cause);
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Number of writes waiting behind the one currently running.
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting work and blocks until every queued write has finished.
+     * Called from onDisable so the final save is durable before the server exits.
+     */
+    public void drain(long timeoutMs) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                TelemetryLogger.warning("Persistence writes did not finish within " + timeoutMs + "ms; " + executor.getQueue().size() + " still queued.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitIdle() {
+        try {
+            while (!executor.awaitTermination(FULL_QUEUE_WARN_MS, TimeUnit.MILLISECONDS)) {
+                TelemetryLogger.warning("Waiting for queued persistence writes to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,19 +5,22 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
- * Persistence: GZIP-compressed YAML for records; wins separate.
- * Adds full involving lookup by scanning all files.
+ * Persistence: Records appended to day-partitioned binary segments (CombatSegmentStore); wins separate.
+ * Legacy per-player GZIP YAML files are migrated on load.
  */
 public class PersistenceManager {
     private final JavaPlugin plugin;
     private final File dataFolder;
     private final File winsFile;
+    private final CombatSegmentStore segmentStore;
+    private final PlayerStatsTable playerStats;
     private final Map<UUID, WinsLosses> winsLossesMap = new ConcurrentHashMap<>();
 
     public PersistenceManager(JavaPlugin plugin) {
@@ -25,6 +28,8 @@ public class PersistenceManager {
         this.dataFolder = new File(plugin.getDataFolder(), "combat");
         if (!dataFolder.exists()) dataFolder.mkdirs();
         this.winsFile = new File(plugin.getDataFolder(), "wins.yml");
+        this.segmentStore = new CombatSegmentStore(dataFolder, plugin.getLogger());
+        this.playerStats = new PlayerStatsTable(plugin.getDataFolder(), plugin.getLogger());
     }
 
     public void load() {
@@ -39,12 +44,40 @@ public class PersistenceManager {
             }
         }
         plugin.getLogger().info("Loaded wins/losses for " + winsLossesMap.size() + " players.");
+        migrateLegacyFiles();
+        if (!playerStats.load()) {
+            // First run with stats: derive them once from the stored history
+            segmentStore.forEachRecord(playerStats::record);
+            plugin.getLogger().info("Rebuilt player stats from combat history.");
+        }
+    }
+
+    public PlayerStatsTable getPlayerStats() {
+        return playerStats;
+    }
+
+    /**
+     * Everything a save writes; taken on the main thread, written on the I/O thread.
+     * The combat generations are sealed, so their records are materialized by the writer.
+     */
+    public record Snapshot(Map<UUID, WinsLosses> winsLosses, PlayerStatsTable.Changes stats, List<CombatCache.Generation> generations) {}
+
+    /**
+     * Copies wins/losses and the changed player stats rows and seals the cache's active generation. Generations whose earlier write
+     * failed are included again. Must be called on the main thread; hand the generations back to
+     * {@link CombatCache#completeFlush} once the write has finished.
+     */
+    public Snapshot snapshot(CombatCache inMemoryCache) {
+        return new Snapshot(new HashMap<>(winsLossesMap), playerStats.takeChanges(), inMemoryCache.beginFlush());
     }
 
-    public void save(CombatCache inMemoryCache) {
-        // Save wins
+    /**
+     * Writes a snapshot to disk. Safe to call off the main thread.
+     * If the record append fails, the exception propagates and the generations stay in the cache for the next snapshot.
+     */
+    public void write(Snapshot snapshot) throws IOException {
         YamlConfiguration winsYaml = new YamlConfiguration();
-        for (var entry : winsLossesMap.entrySet()) {
+        for (var entry : snapshot.winsLosses().entrySet()) {
             winsYaml.createSection(entry.getKey().toString(), entry.getValue().serialize());
         }
         try {
@@ -52,134 +85,120 @@ public class PersistenceManager {
         } catch (IOException e) {
             plugin.getLogger().severe("Failed to save wins.yml: " + e.getMessage());
         }
+        try {
+            playerStats.write(snapshot.stats());
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to save player stats: " + e.getMessage());
+        }
 
-        // Merge/save records (GZIP)
-        for (var entry : inMemoryCache.getRecordsMap().entrySet()) {
-            UUID attacker = entry.getKey();
-            List<CombatRecord> newRecords = new ArrayList<>(entry.getValue());
-            if (newRecords.isEmpty()) continue;
-
-            List<CombatRecord> diskRecords = loadDiskRecordsForPlayer(attacker);
-            diskRecords.addAll(newRecords);
-            diskRecords.sort(Comparator.comparingLong(CombatRecord::timestamp).reversed());
-            saveDiskRecordsForPlayer(attacker, diskRecords);
+        // Append new records to the segment store; history on disk is never re-read here
+        int saved = 0;
+        for (CombatCache.Generation gen : snapshot.generations()) {
+            List<CombatRecord> records = gen.materialize();
+            segmentStore.append(records, gen.committedDays());
+            saved += records.size();
         }
-        plugin.getLogger().info("Saved persistence data.");
+        plugin.getLogger().info("Saved persistence data (" + saved + " records).");
     }
 
-    public List<CombatRecord> loadDiskRecordsForPlayer(UUID playerUUID) {
-        File playerFile = getPlayerFile(playerUUID);
-        if (!playerFile.exists()) return new ArrayList<>();
-
-        try (GZIPInputStream gis = new GZIPInputStream(new FileInputStream(playerFile));
-             InputStreamReader reader = new InputStreamReader(gis)) {
-
-            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(reader);
-            List<CombatRecord> records = new ArrayList<>();
-            List<Map<?, ?>> rawList = yaml.getMapList("records");
+    /**
+     * Deletes a player's stored records on disk and recounts the stats rows they touched: the player, the opponents
+     * in the deleted records and {@code cachedOpponents} (whose cached records with the player were just deleted).
+     * Run on the I/O thread so it is ordered after the appends of earlier saves; pass the result to
+     * {@link #applyStatsRecount} on the main thread.
+     */
+    public PlayerStatsTable.Recount deleteOldRecords(UUID playerUUID, long timespanMs, Set<UUID> cachedOpponents, CombatCache cache) {
+        long cutoff = timespanMs == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - timespanMs;
+        Set<UUID> players = new HashSet<>(cachedOpponents);
+        players.add(playerUUID);
+        CombatSegmentStore.KeyFilter deleted = (a, v, t) -> (a.equals(playerUUID) || v.equals(playerUUID)) && t < cutoff;
+        for (CombatRecord r : segmentStore.readInvolving(playerUUID, deleted)) {
+            players.add(r.attackerUUID());
+            players.add(r.victimUUID());
+        }
+        segmentStore.deleteInvolving(playerUUID, cutoff);
 
-            for (Map<?, ?> raw : rawList) {
-                records.add(CombatRecord.deserialize((Map<String, Object>) raw));
+        Map<PlayerStatsTable.RecordKey, CombatRecord> cached = PlayerStatsTable.byKey(cache.getAllRecords());
+        Map<UUID, PlayerStats> counted = new HashMap<>();
+        for (UUID uuid : players) {
+            for (CombatRecord r : segmentStore.readInvolving(uuid, CombatSegmentStore.KeyFilter.involving(uuid))) {
+                if (!cached.containsKey(PlayerStatsTable.RecordKey.of(r))) PlayerStatsTable.count(counted, r, uuid::equals);
             }
-            return records;
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to load " + playerFile.getName() + ": " + e.getMessage());
-            return new ArrayList<>();
         }
+        return new PlayerStatsTable.Recount(players, counted, cached);
     }
 
-    private void saveDiskRecordsForPlayer(UUID playerUUID, List<CombatRecord> records) {
-        File playerFile = getPlayerFile(playerUUID);
-
-        YamlConfiguration yaml = new YamlConfiguration();
-        List<Map<String, Object>> serialized = records.stream()
-                .map(CombatRecord::serialize)
-                .toList();
-        yaml.set("records", serialized);
-
-        // Convert to string first (this is what YamlConfiguration.save(File) does internally)
-        String yamlString = yaml.saveToString();
-
-        try (FileOutputStream fos = new FileOutputStream(playerFile);
-             GZIPOutputStream gos = new GZIPOutputStream(fos);
-             OutputStreamWriter writer = new OutputStreamWriter(gos)) {
-
-            writer.write(yamlString);
-            writer.flush();           // Important for GZIP
-            gos.finish();             // Finalize GZIP stream
-
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save " + playerFile.getName() + ": " + e.getMessage());
-        }
+    /**
+     * Deletes every stored record older than the timespan and recounts all stats rows. I/O thread, like
+     * {@link #deleteOldRecords}.
+     */
+    public PlayerStatsTable.Recount deleteOldRecordsForAll(long timespanMs, CombatCache cache) {
+        long cutoff = timespanMs == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - timespanMs;
+        segmentStore.deleteOlderThan(cutoff);
+
+        Map<PlayerStatsTable.RecordKey, CombatRecord> cached = PlayerStatsTable.byKey(cache.getAllRecords());
+        Map<UUID, PlayerStats> counted = new HashMap<>();
+        segmentStore.forEachRecord(r -> {
+            if (!cached.containsKey(PlayerStatsTable.RecordKey.of(r))) PlayerStatsTable.count(counted, r, uuid -> true);
+        });
+        return new PlayerStatsTable.Recount(null, counted, cached);
     }
 
-    private File getPlayerFile(UUID playerUUID) {
-        return new File(dataFolder, playerUUID.toString() + ".gz");
+    /**
+     * Applies a recount from a delete, so the bully icon and totals stop counting deleted fights. Main thread.
+     */
+    public void applyStatsRecount(PlayerStatsTable.Recount recount, CombatCache cache) {
+        playerStats.applyRecount(recount, cache.getAllRecords());
     }
 
-    public void deleteOldRecords(UUID playerUUID, long timespanMs) {
-        long cutoff = timespanMs == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - timespanMs;
-        
-        for (File file : Objects.requireNonNull(dataFolder.listFiles((dir, name) -> name.endsWith(".gz")))) {
-            String fileName = file.getName();
-            UUID attackerUUID;
-            try {
-                attackerUUID = UUID.fromString(fileName.replace(".gz", ""));
-            } catch (IllegalArgumentException e) {
-                continue;
-            }
-            
-            List<CombatRecord> records = loadDiskRecordsForPlayer(attackerUUID);
-            boolean changed = records.removeIf(record -> 
-                (record.attackerUUID().equals(playerUUID) || record.victimUUID().equals(playerUUID)) 
-                && record.timestamp() < cutoff
-            );
-            
-            if (changed) {
-                saveDiskRecordsForPlayer(attackerUUID, records);
-            }
-        }
+    public List<CombatRecord> getFullRecordsInvolvingPlayer(UUID targetUUID) {
+        List<CombatRecord> involving = segmentStore.readInvolving(targetUUID, CombatSegmentStore.KeyFilter.involving(targetUUID));
+        involving.sort(Comparator.comparingLong(CombatRecord::timestamp).reversed());
+        return involving;
     }
 
-    public void deleteOldRecordsForAll(long timespanMs) {
-        long cutoff = timespanMs == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - timespanMs;
-        for (File file : Objects.requireNonNull(dataFolder.listFiles((dir, name) -> name.endsWith(".gz")))) {
-            String fileName = file.getName();
-            UUID uuid;
+    /**
+     * One-time import of the old per-player GZIP YAML files into the segment store.
+     * Each file is renamed to .gz.migrated once its records are appended.
+     */
+    private void migrateLegacyFiles() {
+        File[] legacy = dataFolder.listFiles((dir, name) -> name.endsWith(".gz"));
+        if (legacy == null || legacy.length == 0) return;
+
+        int migrated = 0;
+        for (File file : legacy) {
+            List<CombatRecord> records = loadLegacyFile(file);
+            if (records == null) continue;
+            records.sort(Comparator.comparingLong(CombatRecord::timestamp));
             try {
-                uuid = UUID.fromString(fileName.replace(".gz", ""));
-            } catch (IllegalArgumentException e) {
-                continue;
-            }
-            
-            List<CombatRecord> records = loadDiskRecordsForPlayer(uuid);
-            boolean changed = records.removeIf(record -> record.timestamp() < cutoff);
-            
-            if (changed) {
-                saveDiskRecordsForPlayer(uuid, records);
+                segmentStore.append(records, new HashSet<>());
+                Files.move(file.toPath(), new File(dataFolder, file.getName() + ".migrated").toPath(), StandardCopyOption.REPLACE_EXISTING);
+                migrated += records.size();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to migrate " + file.getName() + ": " + e.getMessage());
             }
         }
+        plugin.getLogger().info("Migrated " + migrated + " legacy combat records into segment storage.");
     }
 
-    public List<CombatRecord> getFullRecordsInvolvingPlayer(UUID targetUUID) {
-        List<CombatRecord> involving = new ArrayList<>();
-        for (File file : Objects.requireNonNull(dataFolder.listFiles((dir, name) -> name.endsWith(".gz")))) {
-            String fileName = file.getName();
-            UUID attackerUUID;
-            try {
-                attackerUUID = UUID.fromString(fileName.replace(".gz", ""));
-            } catch (IllegalArgumentException e) {
-                continue;
-            }
-            List<CombatRecord> records = loadDiskRecordsForPlayer(attackerUUID);
-            for (CombatRecord record : records) {
-                if (record.attackerUUID().equals(targetUUID) || record.victimUUID().equals(targetUUID)) {
-                    involving.add(record);
-                }
+    @SuppressWarnings("unchecked")
+    private List<CombatRecord> loadLegacyFile(File playerFile) {
+        try (GZIPInputStream gis = new GZIPInputStream(new FileInputStream(playerFile));
+             InputStreamReader reader = new InputStreamReader(gis)) {
+
+            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(reader);
+            List<CombatRecord> records = new ArrayList<>();
+            List<Map<?, ?>> rawList = yaml.getMapList("records");
+
+            for (Map<?, ?> raw : rawList) {
+                records.add(CombatRecord.deserialize((Map<String, Object>) raw));
             }
+            return records;
+        } catch (IOException | RuntimeException e) {
+            // E.g. a record in a world that is not loaded; the file stays for the next start
+            plugin.getLogger().severe("Failed to load " + playerFile.getName() + ": " + e.getMessage());
+            return null;
         }
-        involving.sort(Comparator.comparingLong(CombatRecord::timestamp).reversed());
-        return involving;
     }
 
     public Map<UUID, WinsLosses> getWinsLossesMap() {
@@ -8,7 +8,11 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Main: Adds inventory/loc commands, name-uuid manager, tabs.
@@ -22,6 +26,9 @@ public class PlayerLocs extends JavaPlugin implements Listener {
     private TabListManager tabListManager;
     private NameUuidManager nameUuidManager;
     private EscrowManager escrowManager;
+    private PersistenceExecutor persistenceExecutor;
+    private OfflineLocationScanner offlineLocationScanner;
+    private OfflineLocationIndex offlineLocationIndex;
 
     @Override
     public void onEnable() {
@@ -33,38 +40,47 @@ public class PlayerLocs extends JavaPlugin implements Listener {
         configManager = new ConfigManager(this);
         persistenceManager = new PersistenceManager(this);
         persistenceManager.load();
-        globalCombatCache = new CombatCache();
+        persistenceExecutor = new PersistenceExecutor(this, configManager.getPersistenceMaxQueuedWrites());
+        globalCombatCache = new CombatCache(persistenceManager.getPlayerStats(), configManager);
+        globalCombatCache.setPressureListener(() -> Bukkit.getScheduler().runTask(this, this::submitSave));
         scoringEngine = new ScoringEngine(configManager);
         nameUuidManager = new NameUuidManager(this);
-        fightManager = new FightManager(this, configManager, globalCombatCache, scoringEngine, persistenceManager);
-        tabListManager = new TabListManager(this, persistenceManager, globalCombatCache);
-        escrowManager = new EscrowManager(this, fightManager, configManager);
+        offlineLocationScanner = new OfflineLocationScanner(this, nameUuidManager);
+        offlineLocationIndex = new OfflineLocationIndex(this);
+        getServer().getPluginManager().registerEvents(offlineLocationIndex, this);
+        fightManager = new FightManager(this, configManager, scoringEngine, persistenceManager);
+        tabListManager = new TabListManager(this, configManager, persistenceManager);
+        escrowManager = new EscrowManager(this, fightManager, configManager, persistenceExecutor);
 
         Objects.requireNonNull(getCommand("fight")).setExecutor(new FightCommand(this, fightManager, configManager));
         Objects.requireNonNull(getCommand("fight")).setTabCompleter(new FightTabCompleter());
-        Objects.requireNonNull(getCommand("combat")).setExecutor(new CombatCommand(globalCombatCache, configManager, persistenceManager, nameUuidManager, tabListManager));
+        Objects.requireNonNull(getCommand("combat")).setExecutor(new CombatCommand(globalCombatCache, configManager, persistenceManager, persistenceExecutor, nameUuidManager, tabListManager));
         Objects.requireNonNull(getCommand("combat")).setTabCompleter(new CombatTabCompleter());
         Objects.requireNonNull(getCommand("borax")).setExecutor(new BoraxCommand(this));
-        Objects.requireNonNull(getCommand("inventory")).setExecutor(new InventoryCommand(this, nameUuidManager));
+        InventoryItemIndex inventoryItemIndex = new InventoryItemIndex(this);
+        getServer().getPluginManager().registerEvents(inventoryItemIndex, this);
+        Bukkit.getScheduler().runTaskTimer(this, inventoryItemIndex::refresh, 20L, InventoryItemIndex.REFRESH_INTERVAL_TICKS);
+        Objects.requireNonNull(getCommand("inventory")).setExecutor(new InventoryCommand(this, nameUuidManager, new OfflineInventoryCache(), inventoryItemIndex));
         Objects.requireNonNull(getCommand("inventory")).setTabCompleter(new InventoryTabCompleter(nameUuidManager));
-        Objects.requireNonNull(getCommand("loc")).setExecutor(new LocationCommand(this, nameUuidManager));
+        Objects.requireNonNull(getCommand("loc")).setExecutor(new LocationCommand(this, nameUuidManager, offlineLocationScanner, offlineLocationIndex));
         Objects.requireNonNull(getCommand("loc")).setTabCompleter(new LocationTabCompleter(nameUuidManager));
         
         EscrowCommand escrowCommand = new EscrowCommand(escrowManager, nameUuidManager);
         Objects.requireNonNull(getCommand("escrow")).setExecutor(escrowCommand);
         Objects.requireNonNull(getCommand("escrow")).setTabCompleter(escrowCommand);
+        new AsyncTabCompleteListener(this, "loc", "inventory", "escrow");
 
-        getServer().getPluginManager().registerEvents(new HitListener(globalCombatCache, fightManager, configManager), this);
-        getServer().getPluginManager().registerEvents(new KillListener(globalCombatCache, fightManager, configManager), this);
+        ArmorTierCache armorTierCache = new ArmorTierCache(this, configManager);
+        getServer().getPluginManager().registerEvents(armorTierCache, this);
+        getServer().getPluginManager().registerEvents(new HitListener(globalCombatCache, fightManager, configManager, armorTierCache, new AutoFightDetector(this, configManager)), this);
+        getServer().getPluginManager().registerEvents(new KillListener(globalCombatCache, fightManager, configManager, armorTierCache), this);
         getServer().getPluginManager().registerEvents(this, this);  // For join
 
-        // Periodic save
+        // Periodic save: snapshot on the main thread, write on the I/O thread
         new BukkitRunnable() {
             @Override
             public void run() {
-                persistenceManager.save(globalCombatCache);
-                globalCombatCache.clearAfterPersist();
-                nameUuidManager.save();
+                submitSave();
             }
         }.runTaskTimer(this, 6000L, 6000L);
 
@@ -74,8 +90,51 @@ public class PlayerLocs extends JavaPlugin implements Listener {
     @Override
     public void onDisable() {
         fightManager.endCurrentFight();
-        persistenceManager.save(globalCombatCache);
-        nameUuidManager.save();
+        submitSave();
+        offlineLocationScanner.shutdown();
+        persistenceExecutor.drain(30_000L);
+    }
+
+    private void submitSave() {
+        PersistenceManager.Snapshot combatSnapshot = persistenceManager.snapshot(globalCombatCache);
+        Map<UUID, String> nameChanges = nameUuidManager.takeChanges();
+        List<OfflineLocationIndex.Entry> locations = offlineLocationIndex.snapshotIfDirty();
+
+        AtomicBoolean combatDurable = new AtomicBoolean();
+        AtomicBoolean locationsSaved = new AtomicBoolean();
+        persistenceExecutor.submit("periodic save", () -> {
+            // The changes were already taken from each store, so one failing write must not skip the others
+            Exception failure = null;
+            try {
+                persistenceManager.write(combatSnapshot);
+                combatDurable.set(true);
+            } catch (Exception e) {
+                failure = e;
+            }
+            try {
+                nameUuidManager.writeChanges(nameChanges); // Marks the names dirty again itself on failure
+            } catch (Exception e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+            if (locations != null) {
+                try {
+                    offlineLocationIndex.write(locations);
+                    locationsSaved.set(true);
+                } catch (Exception e) {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) throw failure;
+        }, error -> {
+            // Only the combat append decides whether the sealed generations can be dropped
+            globalCombatCache.completeFlush(combatSnapshot.generations(), combatDurable.get());
+            if (locations != null && !locationsSaved.get()) offlineLocationIndex.markDirty();
+            if (error != null) {
+                TelemetryLogger.warning("Periodic save failed; unsaved combat records will be retried next cycle.");
+            }
+        });
     }
 
     @EventHandler
@@ -0,0 +1,186 @@
+package com.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Secondary index over the combat segments: player UUID -> (segment, offset) of every record
+ * where the player is the victim or the attacker.
+ * Persisted as an append-only posting log next to the segments; the in-memory form packs each
+ * posting into one long. Also tracks how far each segment has been indexed so that records
+ * appended before a crash can be caught up on load.
+ */
+public class PlayerRecordIndex {
+    private static final int MAGIC = 0x42584958; // "BXIX"
+    private static final short FORMAT_VERSION = 1;
+    private static final int ENTRY_BYTES = 16 + 4 + 4 + 4;
+
+    private final File file;
+    private final Logger logger;
+    private final Map<UUID, Postings> postings = new HashMap<>();
+    private final Map<Integer, Long> indexedEnd = new HashMap<>();
+
+    /**
+     * One posting to add: the record at {@code offset} in {@code segment} involves {@code player}.
+     */
+    public record Entry(UUID player, int segment, int offset, int length) {}
+
+    public PlayerRecordIndex(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    /**
+     * Loads the posting log. A missing or unreadable log leaves the index empty so the caller rebuilds it.
+     */
+    public void load() {
+        postings.clear();
+        indexedEnd.clear();
+        if (!file.exists()) return;
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (buf.remaining() < 6 || buf.getInt() != MAGIC || buf.getShort() != FORMAT_VERSION) {
+                logger.warning("Discarding unreadable " + file.getName() + "; it will be rebuilt.");
+                postings.clear();
+                return;
+            }
+            while (buf.remaining() >= ENTRY_BYTES) {
+                addInMemory(new Entry(new UUID(buf.getLong(), buf.getLong()), buf.getInt(), buf.getInt(), buf.getInt()));
+            }
+        } catch (IOException e) {
+            logger.severe("Failed to read " + file.getName() + ": " + e.getMessage());
+            postings.clear();
+            indexedEnd.clear();
+        }
+    }
+
+    /**
+     * Adds postings in memory and appends them to the log.
+     */
+    public void append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) return;
+        boolean fresh = !file.exists() || file.length() == 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024))) {
+            if (fresh) writeHeader(out);
+            for (Entry e : entries) writeEntry(out, e);
+        }
+        for (Entry e : entries) addInMemory(e);
+    }
+
+    /**
+     * Forgets every posting into a segment, e.g. before it is rewritten or unlinked.
+     * The log is not touched; call {@link #rewrite()} once all changes are applied.
+     */
+    public void dropSegment(int segment) {
+        indexedEnd.remove(segment);
+        postings.values().removeIf(p -> p.removeSegment(segment));
+    }
+
+    /**
+     * Rewrites the log from memory, compacting away dropped postings.
+     */
+    public void rewrite() throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            writeHeader(out);
+            for (var entry : postings.entrySet()) {
+                Postings p = entry.getValue();
+                for (int i = 0; i < p.size; i++) {
+                    writeEntry(out, new Entry(entry.getKey(), segmentOf(p.packed[i]), offsetOf(p.packed[i]), p.lengths[i]));
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Packed (segment, offset) postings for a player, sorted by segment then offset.
+     */
+    public long[] lookup(UUID player) {
+        Postings p = postings.get(player);
+        if (p == null) return new long[0];
+        long[] copy = Arrays.copyOf(p.packed, p.size);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Segments that hold at least one record involving the player.
+     */
+    public Set<Integer> segmentsFor(UUID player) {
+        Set<Integer> segments = new TreeSet<>();
+        for (long packed : lookup(player)) segments.add(segmentOf(packed));
+        return segments;
+    }
+
+    /**
+     * Byte offset up to which a segment has been indexed, or -1 if it has no postings.
+     */
+    public long indexedEnd(int segment) {
+        return indexedEnd.getOrDefault(segment, -1L);
+    }
+
+    public static int segmentOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    public static int offsetOf(long packed) {
+        return (int) packed;
+    }
+
+    private void addInMemory(Entry e) {
+        postings.computeIfAbsent(e.player(), k -> new Postings()).add(e.segment(), e.offset(), e.length());
+        long end = (long) e.offset() + 4 + e.length();
+        indexedEnd.merge(e.segment(), end, Math::max);
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry e) throws IOException {
+        out.writeLong(e.player().getMostSignificantBits());
+        out.writeLong(e.player().getLeastSignificantBits());
+        out.writeInt(e.segment());
+        out.writeInt(e.offset());
+        out.writeInt(e.length());
+    }
+
+    /**
+     * Growable primitive posting list for one player.
+     */
+    private static final class Postings {
+        long[] packed = new long[4];
+        int[] lengths = new int[4];
+        int size;
+
+        void add(int segment, int offset, int length) {
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            packed[size] = ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+            lengths[size] = length;
+            size++;
+        }
+
+        /** @return true if the list is now empty. */
+        boolean removeSegment(int segment) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (segmentOf(packed[i]) != segment) {
+                    packed[kept] = packed[i];
+                    lengths[kept] = lengths[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example;
+
+/**
+ * Per-player lifetime combat aggregates: kills in and out of fights, hits landed, damage dealt and taken.
+ * Mutable so the hit path can update it in place; snapshots for saving go through {@link #copy()}.
+ */
+public class PlayerStats {
+    private int fightKills;
+    private int nonFightKills;
+    private long hits;
+    private double damageDealt;
+    private double damageTaken;
+
+    public int getFightKills() {
+        return fightKills;
+    }
+
+    public int getNonFightKills() {
+        return nonFightKills;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public double getDamageDealt() {
+        return damageDealt;
+    }
+
+    public double getDamageTaken() {
+        return damageTaken;
+    }
+
+    /**
+     * Bully icon rule: more kills outside fights than inside them.
+     */
+    public boolean isBully() {
+        return nonFightKills > fightKills;
+    }
+
+    void recordKill(boolean inFight) {
+        if (inFight) fightKills++;
+        else nonFightKills++;
+    }
+
+    void recordHitDealt(double damage) {
+        hits++;
+        damageDealt += damage;
+    }
+
+    void recordHitTaken(double damage) {
+        damageTaken += damage;
+    }
+
+    static PlayerStats of(int fightKills, int nonFightKills, long hits, double damageDealt, double damageTaken) {
+        PlayerStats stats = new PlayerStats();
+        stats.fightKills = fightKills;
+        stats.nonFightKills = nonFightKills;
+        stats.hits = hits;
+        stats.damageDealt = damageDealt;
+        stats.damageTaken = damageTaken;
+        return stats;
+    }
+
+    public PlayerStats copy() {
+        PlayerStats copy = new PlayerStats();
+        copy.fightKills = fightKills;
+        copy.nonFightKills = nonFightKills;
+        copy.hits = hits;
+        copy.damageDealt = damageDealt;
+        copy.damageTaken = damageTaken;
+        return copy;
+    }
+}
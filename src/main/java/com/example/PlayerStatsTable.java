@@ -0,0 +1,302 @@
+package com.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Materialized per-player stats, kept in step with the combat history: CombatCache feeds every new hit in,
+ * and the rows changed since the last save are persisted with each save. Reads are a map lookup.
+ * Kill records (fatal) count as kills only; their placeholder damage is not added to the damage totals.
+ *
+ * Storage follows NameUuidManager: a binary snapshot (stats.bin) plus an append-only journal of fixed-size rows
+ * (stats.journal). Each save appends only the dirty rows; once the journal has grown past a fraction of the table,
+ * the next save writes a full snapshot under a new generation instead.
+ */
+public class PlayerStatsTable {
+    private static final PlayerStats EMPTY = new PlayerStats();
+    private static final int SNAPSHOT_MAGIC = 0x42585353; // "BXSS"
+    private static final int JOURNAL_MAGIC = 0x4258534a; // "BXSJ"
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 8;
+    private static final int ROW_BYTES = 16 + 4 + 4 + 8 + 8 + 8;
+    private static final int MIN_COMPACT_ROWS = 1024;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final Logger logger;
+    private final Map<UUID, PlayerStats> stats = new ConcurrentHashMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean compactRequested;
+    private long journalRows; // Main thread: rows handed to the journal since the last full snapshot
+
+    // Owned by whichever thread runs write (the single I/O thread), and by load() before that
+    private long generation;
+    private long journalBytes; // Journal length covering complete rows; 0 = no journal for this generation yet
+
+    /**
+     * Rows to persist: only the changed ones, or every row if {@code full} (written as a new snapshot).
+     */
+    public record Changes(Map<UUID, PlayerStats> rows, boolean full) {}
+
+    /**
+     * Rows recounted after a delete: {@code counted} holds the stored history minus the records that were still
+     * cached at the time ({@code cached}); those are counted with the current cache in {@link #applyRecount}, so a
+     * record both stored and cached is counted once. {@code players} null means every row.
+     */
+    public record Recount(Set<UUID> players, Map<UUID, PlayerStats> counted, Map<RecordKey, CombatRecord> cached) {}
+
+    /**
+     * Identity of a record that survives encoding, which stores damage and position at lower precision; matches a
+     * stored record to its cached original.
+     */
+    public record RecordKey(UUID attacker, UUID victim, long timestamp, boolean fatal) {
+        public static RecordKey of(CombatRecord r) {
+            return new RecordKey(r.attackerUUID(), r.victimUUID(), r.timestamp(), r.isFatalKill());
+        }
+    }
+
+    public PlayerStatsTable(File dataFolder, Logger logger) {
+        this.snapshotFile = new File(dataFolder, "stats.bin");
+        this.journalFile = new File(dataFolder, "stats.journal");
+        this.logger = logger;
+    }
+
+    /**
+     * Loads the snapshot and replays the journal. Returns false if there is nothing stored yet and the table has to
+     * be rebuilt from history; the next save then writes a full snapshot.
+     */
+    public boolean load() {
+        stats.clear();
+        generation = 0;
+        journalBytes = 0;
+        if (!snapshotFile.exists()) {
+            compactRequested = true;
+            return false;
+        }
+        try {
+            readSnapshot();
+            if (!replayJournal()) compactRequested = true; // No journal for this generation; start one with a snapshot
+        } catch (IOException | RuntimeException e) {
+            logger.severe("Failed to load player stats: " + e.getMessage());
+            stats.clear();
+            compactRequested = true;
+            return false;
+        }
+        return true;
+    }
+
+    private void readSnapshot() throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(snapshotFile.toPath()));
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != SNAPSHOT_MAGIC || buf.getShort() != FORMAT_VERSION) {
+            throw new IOException("Not a stats snapshot: " + snapshotFile.getName());
+        }
+        generation = buf.getLong();
+        int count = buf.getInt();
+        for (int i = 0; i < count; i++) readRow(buf);
+    }
+
+    /**
+     * Replays the journal onto the loaded snapshot.
+     * @return False if there is no journal for the current generation.
+     */
+    private boolean replayJournal() throws IOException {
+        if (!journalFile.exists()) return false;
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(journalFile.toPath()));
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != JOURNAL_MAGIC || buf.getShort() != FORMAT_VERSION) {
+            logger.warning("Ignoring unreadable " + journalFile.getName());
+            return false;
+        }
+        if (buf.getLong() != generation) return false; // Written before the current snapshot; already folded in
+        while (buf.remaining() >= ROW_BYTES) readRow(buf);
+        if (buf.hasRemaining()) {
+            // Torn tail from an interrupted append; cut off before the next append
+            logger.warning("Truncated row at the end of " + journalFile.getName());
+        }
+        journalBytes = buf.position();
+        return true;
+    }
+
+    public void record(UUID attacker, UUID victim, double damage, boolean fatal, boolean inFight) {
+        count(stats, attacker, victim, damage, fatal, inFight, uuid -> true);
+        dirty.add(attacker);
+        if (!fatal) dirty.add(victim);
+    }
+
+    public void record(CombatRecord r) {
+        record(r.attackerUUID(), r.victimUUID(), r.damageAmount(), r.isFatalKill(), r.fightSessionId() != null);
+    }
+
+    /**
+     * Cached records keyed for matching against stored ones.
+     */
+    public static Map<RecordKey, CombatRecord> byKey(Collection<CombatRecord> records) {
+        Map<RecordKey, CombatRecord> keyed = new HashMap<>(records.size() * 2);
+        for (CombatRecord r : records) keyed.put(RecordKey.of(r), r);
+        return keyed;
+    }
+
+    /**
+     * Adds a record to the rows of the players in {@code scope}. Used to recount rows off the main thread.
+     */
+    public static void count(Map<UUID, PlayerStats> rows, CombatRecord r, Predicate<UUID> scope) {
+        count(rows, r.attackerUUID(), r.victimUUID(), r.damageAmount(), r.isFatalKill(), r.fightSessionId() != null, scope);
+    }
+
+    private static void count(Map<UUID, PlayerStats> rows, UUID attacker, UUID victim, double damage, boolean fatal,
+                              boolean inFight, Predicate<UUID> scope) {
+        if (fatal) {
+            if (scope.test(attacker)) rows.computeIfAbsent(attacker, k -> new PlayerStats()).recordKill(inFight);
+            return;
+        }
+        if (scope.test(attacker)) rows.computeIfAbsent(attacker, k -> new PlayerStats()).recordHitDealt(damage);
+        if (scope.test(victim)) rows.computeIfAbsent(victim, k -> new PlayerStats()).recordHitTaken(damage);
+    }
+
+    /**
+     * Replaces the recounted rows, adding the records cached now. Rows are journaled with the next save; a recount
+     * of every row is written as a full snapshot. Main thread only.
+     */
+    public void applyRecount(Recount recount, Collection<CombatRecord> cachedNow) {
+        Predicate<UUID> scope = recount.players() == null ? uuid -> true : recount.players()::contains;
+        Map<UUID, PlayerStats> rows = recount.counted();
+        Map<RecordKey, CombatRecord> cached = new HashMap<>(recount.cached());
+        for (CombatRecord r : cachedNow) cached.putIfAbsent(RecordKey.of(r), r);
+        for (CombatRecord r : cached.values()) count(rows, r, scope);
+
+        if (recount.players() == null) {
+            stats.keySet().retainAll(rows.keySet());
+            stats.putAll(rows);
+            compactRequested = true;
+            return;
+        }
+        for (UUID uuid : recount.players()) {
+            stats.put(uuid, rows.getOrDefault(uuid, new PlayerStats()));
+            dirty.add(uuid);
+        }
+    }
+
+    /**
+     * Stats for a player; an empty instance if the player has no history. Do not mutate the result.
+     */
+    public PlayerStats get(UUID uuid) {
+        return stats.getOrDefault(uuid, EMPTY);
+    }
+
+    /**
+     * Takes copies of the rows changed since the last call, or of every row when a full snapshot is due.
+     * Main thread only; pass the result to {@link #write(Changes)}.
+     */
+    public Changes takeChanges() {
+        if (compactRequested || journalRows > Math.max(MIN_COMPACT_ROWS, stats.size() / 4)) {
+            compactRequested = false;
+            dirty.clear();
+            journalRows = 0;
+            return new Changes(copyRows(stats.keySet()), true);
+        }
+        Map<UUID, PlayerStats> rows = new HashMap<>();
+        for (Iterator<UUID> it = dirty.iterator(); it.hasNext(); ) {
+            UUID uuid = it.next();
+            it.remove();
+            PlayerStats row = stats.get(uuid);
+            if (row != null) rows.put(uuid, row.copy());
+        }
+        journalRows += rows.size();
+        return new Changes(rows, false);
+    }
+
+    /**
+     * Appends changed rows to the journal, or writes a full snapshot. Safe to call off the main thread; calls must
+     * not overlap. On failure the rows are marked dirty again (or the full snapshot is requested again).
+     */
+    public void write(Changes changes) throws IOException {
+        try {
+            if (changes.full()) {
+                compact(changes.rows());
+            } else if (!changes.rows().isEmpty()) {
+                appendJournal(changes.rows());
+            }
+        } catch (IOException e) {
+            if (changes.full()) compactRequested = true;
+            else dirty.addAll(changes.rows().keySet());
+            throw e;
+        }
+    }
+
+    private void appendJournal(Map<UUID, PlayerStats> rows) throws IOException {
+        if (journalFile.exists() && journalFile.length() != journalBytes) {
+            // Leftovers of a failed append, a torn tail or a stale journal; rows must stay aligned
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(journalBytes);
+            }
+        }
+        int written;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)))) {
+            if (journalBytes == 0) writeHeader(out, JOURNAL_MAGIC, generation);
+            for (var entry : rows.entrySet()) writeRow(out, entry.getKey(), entry.getValue());
+            written = out.size();
+        }
+        journalBytes += written;
+    }
+
+    /**
+     * Writes every row as the next snapshot generation and starts an empty journal for it.
+     */
+    private void compact(Map<UUID, PlayerStats> rows) throws IOException {
+        long nextGeneration = generation + 1;
+        File tmp = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            writeHeader(out, SNAPSHOT_MAGIC, nextGeneration);
+            out.writeInt(rows.size());
+            for (var entry : rows.entrySet()) writeRow(out, entry.getKey(), entry.getValue());
+        }
+        Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = nextGeneration;
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(journalFile))) {
+            writeHeader(out, JOURNAL_MAGIC, generation);
+        }
+        journalBytes = HEADER_BYTES;
+    }
+
+    private Map<UUID, PlayerStats> copyRows(Set<UUID> uuids) {
+        Map<UUID, PlayerStats> copy = new HashMap<>(uuids.size() * 2);
+        for (UUID uuid : uuids) {
+            PlayerStats row = stats.get(uuid);
+            if (row != null) copy.put(uuid, row.copy());
+        }
+        return copy;
+    }
+
+    private void readRow(ByteBuffer buf) {
+        UUID uuid = new UUID(buf.getLong(), buf.getLong());
+        stats.put(uuid, PlayerStats.of(buf.getInt(), buf.getInt(), buf.getLong(), buf.getDouble(), buf.getDouble()));
+    }
+
+    private static void writeRow(DataOutputStream out, UUID uuid, PlayerStats row) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        out.writeInt(row.getFightKills());
+        out.writeInt(row.getNonFightKills());
+        out.writeLong(row.getHits());
+        out.writeDouble(row.getDamageDealt());
+        out.writeDouble(row.getDamageTaken());
+    }
+
+    private static void writeHeader(DataOutputStream out, int magic, long generation) throws IOException {
+        out.writeInt(magic);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(generation);
+    }
+}
@@ -4,14 +4,12 @@ package com.example;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 
-import java.util.Deque;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Scores CombatRecords with heuristics: Only cross-team actions score in fights.
- * Filters to session; configurable.
+ * Scores are accumulated per hit into the session's SessionScore; configurable.
  */
 public class ScoringEngine {
     private final ConfigManager config;
@@ -20,60 +18,47 @@ public class ScoringEngine {
         this.config = config;
     }
 
-    public ScorePair calculateSessionScores(ConcurrentHashMap<UUID, Deque<CombatRecord>> recordsMap, UUID sessionId, Set<UUID> team1, Set<UUID> team2) {
-        int team1Score = 0;
-        int team2Score = 0;
-        for (var entry : recordsMap.entrySet()) {
-            UUID attackerId = entry.getKey();
-            boolean attackerTeam1 = team1.contains(attackerId);
-            boolean attackerTeam2 = team2.contains(attackerId);
-            if (!attackerTeam1 && !attackerTeam2) continue;  // Ignore non-team attackers
-
-            for (CombatRecord record : entry.getValue()) {
-                if (record.fightSessionId() == null || !record.fightSessionId().equals(sessionId)) continue;
-
-                UUID victimId = record.victimUUID();
-                boolean victimTeam1 = team1.contains(victimId);
-                boolean victimTeam2 = team2.contains(victimId);
-                if (!victimTeam1 && !victimTeam2) continue;  // Ignore non-team victims
-
-                // Only score if opposite teams
-                if ((attackerTeam1 && victimTeam2) || (attackerTeam2 && victimTeam1)) {
-                    // Hit points to attacker
-                    int hitPoints = getHitPoints(record);
-                    if (attackerTeam1) team1Score += hitPoints;
-                    else team2Score += hitPoints;
-
-                    // Kill bonus to killer
-                    if (record.isFatalKill()) {
-                        int killPoints = getKillPoints(record);
-                        if (attackerTeam1) team1Score += killPoints;
-                        else team2Score += killPoints;
-                    }
-
-                    // Block bonuses: Hitter small, blocker big
-                    if (record.wasVictimBlocking()) {
-                        int hitterBonus = config.getBlockHitterPoints();
-                        int blockerBonus = config.getBlockBlockerPoints();
-                        if (attackerTeam1) team1Score += hitterBonus;
-                        else team2Score += hitterBonus;
-                        if (victimTeam1) team1Score += blockerBonus;
-                        else team2Score += blockerBonus;
-                    }
-                }
-            }
+    /**
+     * Adds one hit's points to the session score. Only cross-team hits score; non-team players are ignored.
+     */
+    public void scoreHit(SessionScore score, UUID attackerId, UUID victimId, Material weapon, double damage,
+                         boolean fatal, boolean victimBlocking, int victimArmorTier, Set<UUID> team1, Set<UUID> team2) {
+        boolean attackerTeam1 = team1.contains(attackerId);
+        boolean attackerTeam2 = team2.contains(attackerId);
+        if (!attackerTeam1 && !attackerTeam2) return;  // Ignore non-team attackers
+
+        boolean victimTeam1 = team1.contains(victimId);
+        boolean victimTeam2 = team2.contains(victimId);
+        if (!victimTeam1 && !victimTeam2) return;  // Ignore non-team victims
+
+        // Only score if opposite teams
+        if (!((attackerTeam1 && victimTeam2) || (attackerTeam2 && victimTeam1))) return;
+
+        ConfigManager.Settings settings = config.getSettings();
+
+        // Hit points to attacker
+        score.add(attackerTeam1, getHitPoints(settings, damage));
+
+        // Kill bonus to killer
+        if (fatal) {
+            score.add(attackerTeam1, getKillPoints(settings, weapon, victimArmorTier));
+        }
+
+        // Block bonuses: Hitter small, blocker big
+        if (victimBlocking) {
+            score.add(attackerTeam1, settings.blockHitterPoints());
+            score.add(victimTeam1, settings.blockBlockerPoints());
         }
-        return new ScorePair(team1Score, team2Score);
     }
 
-    private int getHitPoints(CombatRecord record) {
-        return (int) (record.damageAmount() * config.getHitDamageMultiplier());
+    private static int getHitPoints(ConfigManager.Settings settings, double damage) {
+        return (int) (damage * settings.hitDamageMultiplier());
     }
 
-    private int getKillPoints(CombatRecord record) {
-        int base = config.getKillBasePoints();
-        int armorBonus = record.victimArmorTier() * config.getArmorBonusPerTier();
-        int weaponUnderdogBonus = (6 - getWeaponTier(record.weaponMaterial())) * config.getWeakWeaponBonusPerTier();
+    private static int getKillPoints(ConfigManager.Settings settings, Material weapon, int victimArmorTier) {
+        int base = settings.killBasePoints();
+        int armorBonus = victimArmorTier * settings.armorBonusPerTier();
+        int weaponUnderdogBonus = (6 - getWeaponTier(weapon)) * settings.weakWeaponBonusPerTier();
         return base + armorBonus + weaponUnderdogBonus;
     }
 
@@ -0,0 +1,99 @@
+package com.example;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.Tag;
+import net.minecraft.nbt.TagTypes;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads only selected top-level tags from a GZIP NBT file such as world/playerdata/<uuid>.dat.
+ * Every other tag is skipped in the stream without building its payload, and reading stops as soon as all
+ * requested tags have been seen. Asking for Pos and Dimension therefore never materializes inventories,
+ * advancements or attributes. Stateless; safe to call from any thread.
+ */
+public final class SelectiveNbtReader {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private SelectiveNbtReader() {}
+
+    /**
+     * Returns a compound holding those of {@code names} that the file's root compound contains.
+     */
+    public static CompoundTag readCompressed(Path path, Set<String> names) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE), BUFFER_SIZE))) {
+            return read(in, names);
+        }
+    }
+
+    static CompoundTag read(DataInput in, Set<String> names) throws IOException {
+        CompoundTag result = new CompoundTag();
+        if (in.readByte() != Tag.TAG_COMPOUND) throw new IOException("Root tag must be a compound");
+        skip(in, in.readUnsignedShort()); // Root name, normally empty
+
+        int remaining = names.size();
+        NbtAccounter accounter = NbtAccounter.unlimitedHeap();
+        byte type;
+        while (remaining > 0 && (type = in.readByte()) != Tag.TAG_END) {
+            String name = in.readUTF();
+            if (names.contains(name) && !result.contains(name)) {
+                result.put(name, TagTypes.getType(type).load(in, accounter));
+                remaining--;
+            } else {
+                skipPayload(in, type);
+            }
+        }
+        return result;
+    }
+
+    private static void skipPayload(DataInput in, byte type) throws IOException {
+        switch (type) {
+            case Tag.TAG_BYTE -> skip(in, 1);
+            case Tag.TAG_SHORT -> skip(in, 2);
+            case Tag.TAG_INT, Tag.TAG_FLOAT -> skip(in, 4);
+            case Tag.TAG_LONG, Tag.TAG_DOUBLE -> skip(in, 8);
+            case Tag.TAG_BYTE_ARRAY -> skip(in, length(in));
+            case Tag.TAG_STRING -> skip(in, in.readUnsignedShort());
+            case Tag.TAG_INT_ARRAY -> skip(in, 4L * length(in));
+            case Tag.TAG_LONG_ARRAY -> skip(in, 8L * length(in));
+            case Tag.TAG_LIST -> {
+                byte elementType = in.readByte();
+                int size = length(in);
+                if (size > 0 && elementType == Tag.TAG_END) throw new IOException("List of END tags with " + size + " elements");
+                for (int i = 0; i < size; i++) skipPayload(in, elementType);
+            }
+            case Tag.TAG_COMPOUND -> {
+                byte childType;
+                while ((childType = in.readByte()) != Tag.TAG_END) {
+                    skip(in, in.readUnsignedShort()); // Child name
+                    skipPayload(in, childType);
+                }
+            }
+            default -> throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static int length(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) throw new IOException("Negative NBT length " + length);
+        return length;
+    }
+
+    private static void skip(DataInput in, long bytes) throws IOException {
+        if (in instanceof InputStream stream) {
+            stream.skipNBytes(bytes);
+            return;
+        }
+        while (bytes > 0) {
+            int step = (int) Math.min(bytes, Integer.MAX_VALUE);
+            if (in.skipBytes(step) != step) throw new EOFException();
+            bytes -= step;
+        }
+    }
+}
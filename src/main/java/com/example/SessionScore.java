@@ -0,0 +1,30 @@
+package com.example;
+
+import java.util.UUID;
+
+/**
+ * Running team totals for one fight session, updated as each hit is recorded.
+ * Lives in FightManager rather than the combat cache, so periodic cache flushes do not reset it.
+ */
+public class SessionScore {
+    private final UUID sessionId;
+    private int team1Score;
+    private int team2Score;
+
+    public SessionScore(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public UUID getSessionId() {
+        return sessionId;
+    }
+
+    public void add(boolean team1, int points) {
+        if (team1) team1Score += points;
+        else team2Score += points;
+    }
+
+    public ScorePair toScorePair() {
+        return new ScorePair(team1Score, team2Score);
+    }
+}
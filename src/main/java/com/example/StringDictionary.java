@@ -0,0 +1,109 @@
+package com.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-file string dictionary used by CombatRecordCodec: player names, world names and material names
+ * are written once into an append-only sidecar file and referenced from records by a small id.
+ * Ids are only ever appended, so records written earlier stay valid. A flush that fails partway is cut back
+ * before the retry, so an entry is never written twice and later ids never shift.
+ */
+public class StringDictionary {
+    private static final int MAGIC = 0x42584454; // "BXDT"
+    private static final short FORMAT_VERSION = 1;
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int persisted;
+    private long persistedBytes; // File length covering the persisted entries; 0 = nothing written yet
+
+    /**
+     * Loads a dictionary sidecar; a missing file yields an empty dictionary.
+     */
+    public static StringDictionary load(File file) throws IOException {
+        StringDictionary dict = new StringDictionary();
+        if (!file.exists()) return dict;
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buf.remaining() < 6 || buf.getInt() != MAGIC || buf.getShort() != FORMAT_VERSION) {
+            throw new IOException("Not a string dictionary: " + file.getName());
+        }
+        while (buf.remaining() >= 2) {
+            int len = Short.toUnsignedInt(buf.getShort());
+            if (len > buf.remaining()) { // Torn tail; ids past it were never referenced
+                buf.position(buf.position() - 2);
+                break;
+            }
+            byte[] bytes = new byte[len];
+            buf.get(bytes);
+            dict.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        dict.persisted = dict.strings.size();
+        dict.persistedBytes = buf.position();
+        return dict;
+    }
+
+    /**
+     * Id for a string, assigning the next one if it is new. New ids are written by {@link #flush(File)}.
+     */
+    public int idFor(String s) {
+        String key = s != null ? s : "";
+        Integer id = ids.get(key);
+        return id != null ? id : add(key);
+    }
+
+    public String get(int id) {
+        if (id < 0 || id >= strings.size()) throw new IllegalArgumentException("Unknown dictionary id " + id);
+        return strings.get(id);
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Appends strings added since the last flush. Must run before records referencing them are written.
+     */
+    public void flush(File file) throws IOException {
+        if (persisted == strings.size()) return;
+        if (file.exists() && file.length() != persistedBytes) {
+            // Leftovers of a failed flush (or a torn tail); drop them so the retry writes each entry once
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(persistedBytes);
+            }
+        }
+        boolean fresh = persistedBytes == 0;
+        int written;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            if (fresh) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+            }
+            for (int i = persisted; i < strings.size(); i++) {
+                byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            written = out.size();
+        }
+        persisted = strings.size();
+        persistedBytes += written;
+    }
+
+    private int add(String key) {
+        // Longer strings than a u16 length can hold never occur for names; clip rather than corrupt the file
+        String stored = key.getBytes(StandardCharsets.UTF_8).length > 0xFFFF ? key.substring(0, 0x3FFF) : key;
+        int id = strings.size();
+        strings.add(stored);
+        ids.put(key, id);
+        return id;
+    }
+}
@@ -8,9 +8,11 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,66 +20,109 @@ import java.util.UUID;
 
 /**
  * Customizes player list names: Adds ping, level, wins/losses, join time, bully/team icon.
- * Updates every 30s; computes bully from records (non-fight kills > fight kills).
+ * Each player is refreshed once per tabList.refreshTicks, staggered by UUID across the ticks of the interval
+ * so no single tick renders everyone. Online players are kept in one bucket per slot, so a tick only visits its
+ * own slice. The last rendered values are kept per player and playerListName is only called (one packet to every
+ * viewer) when one of them changed.
+ * Bully (non-fight kills > fight kills) comes from PlayerStatsTable.
  */
 public class TabListManager implements Listener {
     private final JavaPlugin plugin;
+    private final ConfigManager configManager;
     private final PersistenceManager persistenceManager;
-    private final CombatCache combatCache;
     private final Map<UUID, Long> joinTimes = new HashMap<>();
+    private final Map<UUID, TabState> lastRendered = new HashMap<>();
+    private List<List<Player>> buckets = List.of(); // Online players by refresh slot; rebuilt when the interval changes
+    private long tick;
 
-    public TabListManager(JavaPlugin plugin, PersistenceManager persistenceManager, CombatCache combatCache) {
+    /**
+     * Values shown in a tab entry; equal states render identical components.
+     */
+    private record TabState(int ping, int level, int wins, int losses, String joinedAgo, boolean bully) {}
+
+    public TabListManager(JavaPlugin plugin, ConfigManager configManager, PersistenceManager persistenceManager) {
         this.plugin = plugin;
+        this.configManager = configManager;
         this.persistenceManager = persistenceManager;
-        this.combatCache = combatCache;
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
 
-        // Update tab every 30s
         new BukkitRunnable() {
             @Override
             public void run() {
-                updateAllTabNames();
+                refreshBucket(tick++);
             }
-        }.runTaskTimer(plugin, 0L, 600L);  // 30s
+        }.runTaskTimer(plugin, 1L, 1L);
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         joinTimes.put(event.getPlayer().getUniqueId(), System.currentTimeMillis());
+        if (!buckets.isEmpty()) bucketOf(event.getPlayer().getUniqueId()).add(event.getPlayer());
         updateTabName(event.getPlayer());
     }
 
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        joinTimes.remove(uuid);
+        lastRendered.remove(uuid);
+        if (!buckets.isEmpty()) bucketOf(uuid).removeIf(p -> p.getUniqueId().equals(uuid));
+    }
+
     public void updateAllTabNames() {
         for (Player p : Bukkit.getOnlinePlayers()) {
             updateTabName(p);
         }
     }
 
+    /**
+     * Refreshes the players whose UUID falls in this tick's slot of the interval.
+     */
+    private void refreshBucket(long tick) {
+        int interval = configManager.getTabListRefreshTicks();
+        if (buckets.size() != interval) rebuildBuckets(interval);
+        for (Player p : buckets.get((int) (tick % interval))) {
+            updateTabName(p);
+        }
+    }
+
+    private void rebuildBuckets(int interval) {
+        List<List<Player>> rebuilt = new ArrayList<>(interval);
+        for (int i = 0; i < interval; i++) rebuilt.add(new ArrayList<>());
+        buckets = rebuilt;
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            bucketOf(p.getUniqueId()).add(p);
+        }
+    }
+
+    private List<Player> bucketOf(UUID uuid) {
+        return buckets.get(Math.floorMod(uuid.hashCode(), buckets.size()));
+    }
+
     public void updateTabName(Player player) {
         UUID uuid = player.getUniqueId();
         WinsLosses wl = persistenceManager.getWinsLosses(uuid);
-        int ping = player.getPing();
-        int level = player.getLevel();
         long joinTime = joinTimes.getOrDefault(uuid, System.currentTimeMillis());
-        String timeAgo = formatTimeAgo(System.currentTimeMillis() - joinTime);
-
-        // Compute bully: Load full records for accuracy
-        List<CombatRecord> records = persistenceManager.loadDiskRecordsForPlayer(uuid);
-        records.addAll(combatCache.getRecentHitsByAttacker(uuid, Integer.MAX_VALUE));
-        long fightKills = records.stream().filter(r -> r.isFatalKill() && r.fightSessionId() != null).count();
-        long nonFightKills = records.stream().filter(r -> r.isFatalKill() && r.fightSessionId() == null).count();
-        String icon = nonFightKills > fightKills ? "☠" : "★";
+        TabState state = new TabState(
+                player.getPing(),
+                player.getLevel(),
+                wl.wins(), wl.losses(),
+                formatTimeAgo(System.currentTimeMillis() - joinTime),
+                persistenceManager.getPlayerStats().get(uuid).isBully()
+        );
+        if (state.equals(lastRendered.get(uuid))) return;  // Nothing visible changed; skip the packet
+        lastRendered.put(uuid, state);
 
+        String icon = state.bully() ? "☠" : "★";
         Component nameComponent = Component.text(player.getName(), NamedTextColor.GREEN)
-                .append(Component.text(" [Ping:" + ping + "ms] ", NamedTextColor.GRAY))
-                .append(Component.text(" Lvl:" + level + " ", NamedTextColor.GOLD))
-                .append(Component.text(" W:" + wl.wins() + " L:" + wl.losses() + " ", NamedTextColor.AQUA))
-                .append(Component.text(" Joined:" + timeAgo + " ", NamedTextColor.YELLOW))
+                .append(Component.text(" [Ping:" + state.ping() + "ms] ", NamedTextColor.GRAY))
+                .append(Component.text(" Lvl:" + state.level() + " ", NamedTextColor.GOLD))
+                .append(Component.text(" W:" + state.wins() + " L:" + state.losses() + " ", NamedTextColor.AQUA))
+                .append(Component.text(" Joined:" + state.joinedAgo() + " ", NamedTextColor.YELLOW))
                 .append(Component.text(icon, NamedTextColor.RED));
 
         player.playerListName(nameComponent);
     }
-
     private String formatTimeAgo(long ms) {
         long seconds = ms / 1000;
         if (seconds < 60) return seconds + "s";